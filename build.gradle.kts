@@ -12,6 +12,7 @@ plugins {
     id("io.github.gradle-nexus.publish-plugin") version "1.1.0"
     id("com.palantir.git-version") version "0.12.3"
     id("kr.motd.sphinx") version "2.10.1"
+    id("me.champeau.jmh") version "0.6.6"
 }
 
 group = "io.github.eb4j"
@@ -22,16 +23,30 @@ repositories {
 
 dependencies {
     implementation("org.jetbrains:annotations:23.0.0")
-    implementation("org.apache.commons:commons-lang3:3.12.0")
     implementation("commons-io:commons-io:2.11.0")
-    implementation("com.ibm.icu:icu4j-charset:71.1")
     testImplementation("org.junit.jupiter:junit-jupiter:5.8.2")
     testImplementation("org.codehaus.groovy:groovy-all:3.0.11")
+    // reference BOCU-1 codec to write synthetic dictionaries and to compare with
+    testImplementation("com.ibm.icu:icu4j-charset:71.1")
+    "jmh"("com.ibm.icu:icu4j-charset:71.1")
 }
 
 tasks.getByName<Test>("test") {
     useJUnitPlatform()
 }
+
+jmh {
+    jmhVersion.set("1.35")
+    // benchmarks use SyntheticDictionaryWriter from test sources
+    includeTests.set(true)
+    resultFormat.set("JSON")
+    if (project.hasProperty("jmhIncludes")) {
+        includes.add(project.property("jmhIncludes").toString())
+    }
+    if (project.hasProperty("jmhProfilers")) {
+        profilers.add(project.property("jmhProfilers").toString())
+    }
+}
 spotbugs {
     excludeFilter.set(project.file("config/spotbugs/exclude.xml"))
     tasks.spotbugsMain {
@@ -0,0 +1,113 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch lookup of a document worth of words compared with a loop of single lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+@SuppressWarnings("visibilitymodifier")
+public class BatchLookupBenchmark {
+    /**
+     * Number of words in a batch.
+     */
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private PdicDictionary dictionary;
+    private List<String> batch;
+
+    /**
+     * Load dictionary and pick words of batch.
+     * @param state dictionary.
+     * @throws IOException when load failed.
+     */
+    @Setup(Level.Trial)
+    public void setUp(final DictionaryState state) throws IOException {
+        dictionary = PdicDictionary.loadDictionary(state.dictionaryFile, null);
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            // a half of words are missing like tokens of real text.
+            if (i % 2 == 0) {
+                batch.add(state.hitKeys[i & (DictionaryState.KEY_COUNT - 1)]);
+            } else {
+                batch.add(state.missKeys[i & (DictionaryState.KEY_COUNT - 1)]);
+            }
+        }
+    }
+
+    /**
+     * Close dictionary.
+     * @throws IOException when close failed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dictionary.close();
+    }
+
+    /**
+     * Look up words with getEntriesBatch.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public Map<String, List<PdicElement>> getEntriesBatch() throws IOException {
+        return dictionary.getEntriesBatch(batch);
+    }
+
+    /**
+     * Look up words with getEntries one by one.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public Map<String, List<PdicElement>> getEntriesLoop() throws IOException {
+        Map<String, List<PdicElement>> results = new HashMap<>();
+        for (String word : batch) {
+            results.put(word, dictionary.getEntries(word));
+        }
+        return results;
+    }
+}
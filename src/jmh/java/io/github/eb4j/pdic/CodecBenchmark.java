@@ -0,0 +1,111 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic;
+
+import com.ibm.icu.charset.CharsetICU;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BOCU-1 encoding of search words and decoding of translations, by the codec of the library and by ICU.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+    private static final int COUNT = 1024;
+    private static final Charset ICU = CharsetICU.forNameICU("BOCU-1");
+
+    private String[] words;
+    private byte[][] translations;
+    private final byte[] key = new byte[256];
+    private int next;
+
+    /**
+     * Prepare words and encoded translations.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> generated = SyntheticDictionaryWriter.generateWords(COUNT, 5L);
+        words = generated.toArray(new String[0]);
+        translations = new byte[COUNT][];
+        for (int i = 0; i < COUNT; i++) {
+            translations[i] = Bocu1.encode(SyntheticDictionaryWriter.translationOf(words[i])
+                    + "。例文の訳語、発音記号と用例");
+        }
+    }
+
+    /**
+     * Encode search word into the reused key buffer.
+     * @return encoded length.
+     */
+    @Benchmark
+    public int encode() {
+        return Bocu1.encode(words[next++ & (COUNT - 1)], key);
+    }
+
+    /**
+     * Encode search word by ICU charset.
+     * @return encoded bytes.
+     */
+    @Benchmark
+    public ByteBuffer encodeIcu() {
+        return ICU.encode(words[next++ & (COUNT - 1)]);
+    }
+
+    /**
+     * Decode translation.
+     * @return decoded string.
+     */
+    @Benchmark
+    public String decode() {
+        byte[] translation = translations[next++ & (COUNT - 1)];
+        return Bocu1.decode(translation, 0, translation.length);
+    }
+
+    /**
+     * Decode translation by ICU charset.
+     * @return decoded string.
+     */
+    @Benchmark
+    public String decodeIcu() {
+        byte[] translation = translations[next++ & (COUNT - 1)];
+        CharBuffer decoded = ICU.decode(ByteBuffer.wrap(translation));
+        return decoded.toString();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of lookups from several threads against one shared dictionary.
+ * <p>
+ * Runs with 4 threads by default; use {@code -t} of the JMH command line to change.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+@SuppressWarnings("visibilitymodifier")
+public class ConcurrentLookupBenchmark {
+    /**
+     * Storage mode, file or mapped.
+     */
+    @Param({"file", "mapped"})
+    public String storage;
+
+    private PdicDictionary dictionary;
+
+    /**
+     * Per thread position in the key list.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        /**
+         * Start threads at different keys.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            next = (int) (Thread.currentThread().getId() * 997);
+        }
+
+        int next() {
+            return next++ & (DictionaryState.KEY_COUNT - 1);
+        }
+    }
+
+    /**
+     * Load dictionary shared by all threads.
+     * @param state dictionary.
+     * @throws IOException when load failed.
+     */
+    @Setup(Level.Trial)
+    public void setUp(final DictionaryState state) throws IOException {
+        dictionary = PdicDictionary.loadDictionary(state.dictionaryFile, null,
+                DictionaryState.options("mapped".equals(storage)));
+    }
+
+    /**
+     * Close dictionary.
+     * @throws IOException when close failed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dictionary.close();
+    }
+
+    /**
+     * Exact lookup of existing word.
+     * @param state dictionary.
+     * @param cursor per thread cursor.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntries(final DictionaryState state, final Cursor cursor) throws IOException {
+        return dictionary.getEntries(state.hitKeys[cursor.next()]);
+    }
+
+    /**
+     * Predictive lookup of two letters prefix.
+     * @param state dictionary.
+     * @param cursor per thread cursor.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntriesPredictive(final DictionaryState state, final Cursor cursor)
+            throws IOException {
+        return dictionary.getEntriesPredictive(state.prefixKeys[cursor.next()]);
+    }
+}
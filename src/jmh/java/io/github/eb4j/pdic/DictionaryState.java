@@ -0,0 +1,150 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark state holding a dictionary file prepared on setup.
+ * <p>
+ * {@code sample} is Sample.dic of test resources, and a number is a synthetic dictionary of that many
+ * words written by {@link SyntheticDictionaryWriter}. Files are placed in a temporary directory, so
+ * benchmarks run without network and without external dictionary data. One million words give an
+ * index area of several MB and a body of tens of MB.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("visibilitymodifier")
+public class DictionaryState {
+    /**
+     * Number of prepared keys; power of two.
+     */
+    public static final int KEY_COUNT = 4096;
+
+    /**
+     * Dictionary to use.
+     */
+    @Param({"sample", "10000", "1000000"})
+    public String dictionary;
+
+    /**
+     * Dictionary file.
+     */
+    public File dictionaryFile;
+
+    /**
+     * Index words in index order.
+     */
+    public List<String> words;
+
+    /**
+     * Keys existing in the dictionary, in random order.
+     */
+    public String[] hitKeys;
+
+    /**
+     * Keys not existing in the dictionary, in random order.
+     */
+    public String[] missKeys;
+
+    /**
+     * Prefixes of existing keys, in random order.
+     */
+    public String[] prefixKeys;
+
+    private File directory;
+
+    /**
+     * Prepare dictionary and keys.
+     * @throws IOException when write failed.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pdic4j-jmh").toFile();
+        if ("sample".equals(dictionary)) {
+            dictionaryFile = new File(directory, "Sample.dic");
+            try (InputStream is = DictionaryState.class.getResourceAsStream("/Sample.dic")) {
+                FileUtils.copyInputStreamToFile(is, dictionaryFile);
+            }
+            words = new ArrayList<>();
+            try (PdicDictionary dic = PdicDictionary.loadDictionary(dictionaryFile, null)) {
+                dic.setMaxSearchCount(Integer.MAX_VALUE);
+                for (PdicElement element : dic.getEntriesPredictive("")) {
+                    words.add(element.getIndexWord());
+                }
+            }
+        } else {
+            dictionaryFile = new File(directory, "synthetic" + dictionary + ".dic");
+            words = SyntheticDictionaryWriter.write(dictionaryFile, Integer.parseInt(dictionary), 42L);
+        }
+        Random random = new Random(1);
+        hitKeys = new String[KEY_COUNT];
+        missKeys = new String[KEY_COUNT];
+        prefixKeys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            hitKeys[i] = word;
+            // index words have no digits.
+            missKeys[i] = word + "0";
+            prefixKeys[i] = word.substring(0, Math.min(word.length(), 2));
+        }
+    }
+
+    /**
+     * Remove files.
+     * @throws IOException when delete failed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    /**
+     * Create file path in the temporary directory.
+     * @param name file name.
+     * @return file.
+     */
+    public File tempFile(final String name) {
+        return new File(directory, name);
+    }
+
+    /**
+     * Create load options.
+     * @param mapped true for memory-mapped mode.
+     * @return options.
+     */
+    public static PdicLoadOptions options(final boolean mapped) {
+        PdicLoadOptions.PdicLoadOptionsBuilder builder = new PdicLoadOptions.PdicLoadOptionsBuilder();
+        builder.setMemoryMapped(mapped);
+        return builder.build();
+    }
+}
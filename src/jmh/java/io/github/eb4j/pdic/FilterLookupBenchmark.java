@@ -0,0 +1,109 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact lookup with and without the negative lookup filter.
+ * <p>
+ * Statistics of the filter, false positive rate and bytes per word, are printed at tear down.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+@SuppressWarnings("visibilitymodifier")
+public class FilterLookupBenchmark {
+    /**
+     * Bits per word of the filter, 0 without filter.
+     */
+    @Param({"0", "10"})
+    public int bitsPerWord;
+
+    private PdicDictionary dictionary;
+    private int next;
+
+    /**
+     * Load dictionary with the filter.
+     * @param state dictionary.
+     * @throws IOException when load failed.
+     */
+    @Setup(Level.Trial)
+    public void setUp(final DictionaryState state) throws IOException {
+        PdicLoadOptions.PdicLoadOptionsBuilder builder = new PdicLoadOptions.PdicLoadOptionsBuilder();
+        builder.setBloomFilterBitsPerWord(bitsPerWord);
+        dictionary = PdicDictionary.loadDictionary(state.dictionaryFile, null, builder.build());
+    }
+
+    /**
+     * Close dictionary.
+     * @throws IOException when close failed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        PdicFilterStatistics statistics = dictionary.getFilterStatistics();
+        if (statistics != null) {
+            System.out.printf("%nfalse positive rate %.4f (expected %.4f), %.2f bytes per word%n",
+                    statistics.getFalsePositiveRate(), statistics.getExpectedFalsePositiveRate(),
+                    statistics.getBytesPerWord());
+        }
+        dictionary.close();
+    }
+
+    /**
+     * Exact lookup of existing word.
+     * @param state dictionary.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntriesHit(final DictionaryState state) throws IOException {
+        return dictionary.getEntries(state.hitKeys[next++ & (DictionaryState.KEY_COUNT - 1)]);
+    }
+
+    /**
+     * Exact lookup of missing word.
+     * @param state dictionary.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntriesMiss(final DictionaryState state) throws IOException {
+        return dictionary.getEntries(state.missKeys[next++ & (DictionaryState.KEY_COUNT - 1)]);
+    }
+}
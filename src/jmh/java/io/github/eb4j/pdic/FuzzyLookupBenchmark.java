@@ -0,0 +1,139 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fuzzy lookup of misspelled words against exact lookups of all their variants within one edit.
+ * <p>
+ * A key is an existing word with one letter substituted. Variants are made by deleting, inserting and
+ * substituting a letter from a to z, which is the alphabet of synthetic dictionaries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FuzzyLookupBenchmark {
+    private static final int LIMIT = 100;
+
+    private PdicDictionary dictionary;
+    private String[] misspelledKeys;
+    private int next;
+
+    /**
+     * Load dictionary and misspell keys.
+     * @param state dictionary.
+     * @throws IOException when load failed.
+     */
+    @Setup(Level.Trial)
+    public void setUp(final DictionaryState state) throws IOException {
+        dictionary = PdicDictionary.loadDictionary(state.dictionaryFile, null);
+        misspelledKeys = new String[DictionaryState.KEY_COUNT];
+        Random random = new Random(2);
+        for (int i = 0; i < misspelledKeys.length; i++) {
+            char[] chars = state.hitKeys[i].toCharArray();
+            chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+            misspelledKeys[i] = new String(chars);
+        }
+    }
+
+    /**
+     * Close dictionary.
+     * @throws IOException when close failed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dictionary.close();
+    }
+
+    /**
+     * Fuzzy lookup within one edit.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntriesFuzzy1() throws IOException {
+        return dictionary.getEntriesFuzzy(misspelledKeys[next++ & (DictionaryState.KEY_COUNT - 1)], 1, LIMIT);
+    }
+
+    /**
+     * Fuzzy lookup within two edits.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntriesFuzzy2() throws IOException {
+        return dictionary.getEntriesFuzzy(misspelledKeys[next++ & (DictionaryState.KEY_COUNT - 1)], 2, LIMIT);
+    }
+
+    /**
+     * Exact lookups of all variants within one edit, as spelling suggestions did before.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntriesVariants() throws IOException {
+        final List<PdicElement> results = new ArrayList<>();
+        for (String variant : variants(misspelledKeys[next++ & (DictionaryState.KEY_COUNT - 1)])) {
+            results.addAll(dictionary.getEntries(variant));
+        }
+        return results;
+    }
+
+    private static Set<String> variants(final String word) {
+        final Set<String> variants = new LinkedHashSet<>();
+        variants.add(word);
+        for (int i = 0; i <= word.length(); i++) {
+            final String head = word.substring(0, i);
+            for (char c = 'a'; c <= 'z'; c++) {
+                variants.add(head + c + word.substring(i));
+                if (i < word.length()) {
+                    variants.add(head + c + word.substring(i + 1));
+                }
+            }
+            if (i < word.length()) {
+                variants.add(head + word.substring(i + 1));
+            }
+        }
+        return variants;
+    }
+}
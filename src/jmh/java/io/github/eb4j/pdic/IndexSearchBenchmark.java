@@ -0,0 +1,122 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of index binary search and exact lookup.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=IndexSearchBenchmark} on two commits to compare.
+ * {@code searchIndexBlockByPrefixTable} and {@code searchIndexBlockByFullCompare} compare the search on
+ * the table of first bytes of index words with the search comparing the index area on the same keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IndexSearchBenchmark {
+    private DictionaryData dictionaryData;
+    private PdicDictionary dictionary;
+    private byte[][] encodedKeys;
+    private int next;
+
+    /**
+     * Load dictionary.
+     * @param state dictionary.
+     * @throws IOException when load failed.
+     */
+    @Setup(Level.Trial)
+    public void setUp(final DictionaryState state) throws IOException {
+        dictionary = PdicDictionary.loadDictionary(state.dictionaryFile, null);
+        dictionaryData = dictionary.getDictionaryData();
+        encodedKeys = new byte[state.hitKeys.length][];
+        for (int i = 0; i < encodedKeys.length; i++) {
+            encodedKeys[i] = Bocu1.encode(state.hitKeys[i]);
+        }
+    }
+
+    /**
+     * Close dictionary.
+     * @throws IOException when close failed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dictionary.close();
+    }
+
+    /**
+     * Binary search of index area only.
+     * @param state dictionary.
+     * @return index number.
+     */
+    @Benchmark
+    public int searchIndexBlock(final DictionaryState state) {
+        String key = state.hitKeys[next++ & (state.hitKeys.length - 1)];
+        return dictionaryData.searchIndexBlock(key);
+    }
+
+    /**
+     * Binary search of encoded key with the table of first bytes of index words.
+     * @return index number.
+     */
+    @Benchmark
+    public int searchIndexBlockByPrefixTable() {
+        byte[] key = encodedKeys[next++ & (encodedKeys.length - 1)];
+        return dictionaryData.searchIndexBlock(key, key.length);
+    }
+
+    /**
+     * Binary search of encoded key comparing index words in the index area, as before the prefix table.
+     * @return index number.
+     */
+    @Benchmark
+    public int searchIndexBlockByFullCompare() {
+        byte[] key = encodedKeys[next++ & (encodedKeys.length - 1)];
+        return IndexSearchReference.searchIndexBlockByFullCompare(dictionaryData, key, key.length);
+    }
+
+    /**
+     * Exact lookup of existing word.
+     * @param state dictionary.
+     * @return result count.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public int getEntries(final DictionaryState state) throws IOException {
+        String key = state.hitKeys[next++ & (state.hitKeys.length - 1)];
+        return dictionary.getEntries(key).size();
+    }
+}
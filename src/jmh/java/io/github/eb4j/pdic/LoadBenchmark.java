@@ -0,0 +1,113 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of loadDictionary.
+ * <p>
+ * Cold load builds the index pointer table from the index area, optionally writing the cache file,
+ * and warm load reads an existing index cache file. The OS page cache is warm in every case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LoadBenchmark {
+    private File cacheFile;
+    private File newCacheFile;
+
+    /**
+     * Create index cache file for warm load.
+     * @param state dictionary.
+     * @throws IOException when load failed.
+     */
+    @Setup(Level.Trial)
+    public void setUp(final DictionaryState state) throws IOException {
+        cacheFile = state.tempFile("warm.idx");
+        newCacheFile = state.tempFile("cold.idx");
+        PdicDictionary.loadDictionary(state.dictionaryFile, cacheFile).close();
+    }
+
+    /**
+     * Remove cache file written by previous invocation.
+     * @throws IOException when delete failed.
+     */
+    @Setup(Level.Invocation)
+    public void removeCache() throws IOException {
+        Files.deleteIfExists(newCacheFile.toPath());
+    }
+
+    /**
+     * Load without index cache file.
+     * @param state dictionary.
+     * @return dictionary.
+     * @throws IOException when load failed.
+     */
+    @Benchmark
+    public PdicDictionary loadCold(final DictionaryState state) throws IOException {
+        try (PdicDictionary dictionary = PdicDictionary.loadDictionary(state.dictionaryFile, null)) {
+            return dictionary;
+        }
+    }
+
+    /**
+     * Load and write index cache file.
+     * @param state dictionary.
+     * @return dictionary.
+     * @throws IOException when load failed.
+     */
+    @Benchmark
+    public PdicDictionary loadColdWritingCache(final DictionaryState state) throws IOException {
+        try (PdicDictionary dictionary = PdicDictionary.loadDictionary(state.dictionaryFile, newCacheFile)) {
+            return dictionary;
+        }
+    }
+
+    /**
+     * Load with existing index cache file.
+     * @param state dictionary.
+     * @return dictionary.
+     * @throws IOException when load failed.
+     */
+    @Benchmark
+    public PdicDictionary loadWarm(final DictionaryState state) throws IOException {
+        try (PdicDictionary dictionary = PdicDictionary.loadDictionary(state.dictionaryFile, cacheFile)) {
+            return dictionary;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of capitalized words by the normalized index against exact lookups of four variants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NormalizedLookupBenchmark {
+    private PdicDictionary dictionary;
+    private String[] capitalizedKeys;
+    private int next;
+
+    /**
+     * Load dictionary with the normalized index.
+     * @param state dictionary.
+     * @throws IOException when load failed.
+     */
+    @Setup(Level.Trial)
+    public void setUp(final DictionaryState state) throws IOException {
+        PdicLoadOptions.PdicLoadOptionsBuilder builder = new PdicLoadOptions.PdicLoadOptionsBuilder();
+        builder.setNormalizedIndex(true);
+        dictionary = PdicDictionary.loadDictionary(state.dictionaryFile, null, builder.build());
+        capitalizedKeys = new String[DictionaryState.KEY_COUNT];
+        for (int i = 0; i < capitalizedKeys.length; i++) {
+            String word = state.hitKeys[i];
+            capitalizedKeys[i] = word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1);
+        }
+    }
+
+    /**
+     * Close dictionary.
+     * @throws IOException when close failed.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dictionary.close();
+    }
+
+    /**
+     * Exact lookup of existing word, for reference.
+     * @param state dictionary.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntries(final DictionaryState state) throws IOException {
+        return dictionary.getEntries(state.hitKeys[next++ & (DictionaryState.KEY_COUNT - 1)]);
+    }
+
+    /**
+     * Normalized lookup of capitalized word.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntriesNormalized() throws IOException {
+        return dictionary.getEntriesNormalized(capitalizedKeys[next++ & (DictionaryState.KEY_COUNT - 1)]);
+    }
+
+    /**
+     * Exact lookups of original, lower case, capitalized and NFKC variants of capitalized word.
+     * @return results.
+     * @throws IOException when read failed.
+     */
+    @Benchmark
+    public List<PdicElement> getEntriesVariants() throws IOException {
+        final String word = capitalizedKeys[next++ & (DictionaryState.KEY_COUNT - 1)];
+        final String lower = word.toLowerCase(Locale.ROOT);
+        final List<PdicElement> results = new ArrayList<>(dictionary.getEntries(word));
+        results.addAll(dictionary.getEntries(lower));
+        results.addAll(dictionary.getEntries(lower.substring(0, 1).toUpperCase(Locale.ROOT) + lower.substring(1)));
+        results.addAll(dictionary.getEntries(Normalizer.normalize(word, Normalizer.Form.NFKC)));
+        return results;
+    }
+}
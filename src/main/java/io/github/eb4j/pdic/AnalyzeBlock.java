@@ -18,41 +18,101 @@
 
 package io.github.eb4j.pdic;
 
-import com.ibm.icu.charset.CharsetICU;
-
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
 
+/**
+ * Data block analyzer.
+ * <p>
+ * A block is given as a ByteBuffer and an offset of the block in it, which may be a heap buffer or
+ * the memory-mapped dictionary body; it is accessed only with absolute get so the buffer position is
+ * never changed.
+ */
 final class AnalyzeBlock {
-    private final Charset mainCharset = CharsetICU.forNameICU("BOCU-1");
-    private byte[] buff;
+    private ByteBuffer buff;
     private boolean longField;
     private byte[] searchWord;
+    private int searchLen;
     private int foundPtr = -1;
     private int nextPtr = -1;
+    private int scanPtr = -1;
     private final byte[] compBuff = new byte[1024];
     private int compLen = 0;
     private boolean eob = false;
+    private final LookupCounters counters = new LookupCounters();
 
     AnalyzeBlock() {
     }
 
-    public void setBuffer(final byte[] newBuff) {
+    /**
+     * Counters of the lookup using this analyzer.
+     * @return counters.
+     */
+    LookupCounters getCounters() {
+        return counters;
+    }
+
+    public void setBuffer(final ByteBuffer newBuff) {
+        setBuffer(newBuff, 0);
+    }
+
+    /**
+     * Set data block.
+     * @param newBuff buffer holding the block.
+     * @param offset position of the block in the buffer.
+     */
+    public void setBuffer(final ByteBuffer newBuff, final int offset) {
         buff = newBuff;
-        longField = ((buff[1] & 0x80) != 0);
-        nextPtr = 2;
+        longField = ((buff.get(offset + 1) & 0x80) != 0);
+        nextPtr = offset + 2;
+        scanPtr = nextPtr;
         eob = false;
         compLen = 0;
     }
 
     /**
-     * Set search word.
-     * @param word keyword.
+     * Set encoded search word.
+     * <p>
+     * The array is referred, not copied, and must not be changed while the search goes.
+     * @param key encoded keyword.
+     * @param len length of keyword.
+     */
+    public void setSearch(final byte[] key, final int len) {
+        searchWord = key;
+        searchLen = len;
+    }
+
+    /**
+     * Is the index word of last found entry equal to the search word?
+     * <p>
+     * Index word of ver.6 is an index and a head word joined by TAB, so the word is equal when it ends
+     * or a TAB follows just after the search word.
+     * @return true when exact match, otherwise false.
      */
-    public void setSearch(final String word) {
-        ByteBuffer buffer = Utils.encodetoByteBuffer(mainCharset, word);
-        searchWord = new byte[buffer.limit()];
-        System.arraycopy(buffer.array(), 0, searchWord, 0, buffer.limit());
+    boolean isExactMatch() {
+        final byte b = compBuff[searchLen];
+        return b == 0 || b == 0x09;
+    }
+
+    /**
+     * Can an exact match follow the last found entry?
+     * <p>
+     * Entries are sorted in byte order, so no exact match follows once the byte after the search word
+     * exceeds TAB.
+     * @return true when following entry may match exactly.
+     */
+    boolean mayHaveExactMatch() {
+        return (compBuff[searchLen] & 0xFF) <= 0x09;
+    }
+
+    /**
+     * Continue next search from the last entry examined in the block.
+     * <p>
+     * Entries before it are less than the last search word, so a following search for a greater word
+     * can start there instead of the top of the block. The compression buffer still holds the entry.
+     */
+    void resume() {
+        nextPtr = scanPtr;
+        eob = false;
     }
 
     /**
@@ -86,6 +146,107 @@ final class AnalyzeBlock {
         return lookUpNext(nextPtr, true, incrementptr);
     }
 
+    /**
+     * Move to next entry in the block regardless of search word.
+     * <p>
+     * After {@link #setBuffer(ByteBuffer, int)} the first call moves to the first entry. The compressed
+     * index word is restored in the compression buffer, which starts empty at each block.
+     * @return true when moved, false at end of block.
+     */
+    boolean nextRecord() {
+        int ptr = nextPtr;
+        int flen = buff.get(ptr++) & 0xFF;
+        flen |= (buff.get(ptr++) & 0xFF) << 8;
+        if (longField) {
+            flen |= (buff.get(ptr++) & 0xFF) << 16;
+            flen |= (buff.get(ptr++) & 0x7F) << 24;
+        }
+        if (flen == 0) {
+            eob = true;
+            foundPtr = -1;
+            return false;
+        }
+        int qtr = ptr;
+        int complen = buff.get(qtr++) & 0xFF;
+        // 見出し語属性 skip
+        qtr++;
+        int indexStringLen = Utils.getLengthToNextZero(buff, qtr) + 1;
+        Utils.copyBytes(buff, qtr, compBuff, complen, indexStringLen);
+        foundPtr = nextPtr;
+        nextPtr = ptr + flen + 2;
+        compLen = complen + indexStringLen - 1;
+        return true;
+    }
+
+    /**
+     * Move to the next entry whose index word is not less than a key.
+     * <p>
+     * The last entry moved to, if any, must be less than the key. An entry which keeps more bytes of the
+     * previous one than the previous one has in common with the key is less than the key too, so it is
+     * skipped without reading its index word.
+     * @param key encoded key.
+     * @param keyLen length of key.
+     * @return true when moved, false at end of block.
+     */
+    boolean seek(final byte[] key, final int keyLen) {
+        int common = 0;
+        final int len = Math.min(compLen, keyLen);
+        while (common < len && compBuff[common] == key[common]) {
+            common++;
+        }
+        while (true) {
+            int ptr = nextPtr;
+            int flen = buff.get(ptr++) & 0xFF;
+            flen |= (buff.get(ptr++) & 0xFF) << 8;
+            if (longField) {
+                flen |= (buff.get(ptr++) & 0xFF) << 16;
+                flen |= (buff.get(ptr++) & 0x7F) << 24;
+            }
+            if (flen == 0) {
+                eob = true;
+                foundPtr = -1;
+                return false;
+            }
+            final int complen = buff.get(ptr) & 0xFF;
+            if (complen > common) {
+                // 前の見出し語と同じくキーより小さい
+                nextPtr = ptr + flen + 2;
+                continue;
+            }
+            // 圧縮部分はキーの先頭と同じなので、飛ばした見出し語は復元しなくてよい
+            final int qtr = ptr + 2;
+            final int indexStringLen = Utils.getLengthToNextZero(buff, qtr) + 1;
+            Utils.copyBytes(buff, qtr, compBuff, complen, indexStringLen);
+            foundPtr = nextPtr;
+            nextPtr = ptr + flen + 2;
+            compLen = complen + indexStringLen - 1;
+            common = complen;
+            final int cmpLen = Math.min(compLen, keyLen);
+            while (common < cmpLen && compBuff[common] == key[common]) {
+                common++;
+            }
+            if (common == keyLen || (common < compLen && (compBuff[common] & 0xFF) > (key[common] & 0xFF))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Index word of the entry moved to by {@link #nextRecord()}.
+     * @return buffer holding the index word, valid up to {@link #getIndexWordLength()}.
+     */
+    byte[] getIndexWord() {
+        return compBuff;
+    }
+
+    /**
+     * Length of index word of the entry moved to by {@link #nextRecord()}.
+     * @return length in bytes.
+     */
+    int getIndexWordLength() {
+        return compLen;
+    }
+
     /**
      * Lookup index word and compare with search word.
      * @param lookPtr dictinoary data pointer to start search.
@@ -100,19 +261,20 @@ final class AnalyzeBlock {
 
         while (true) {
             int retptr = ptr;
-            b = buff[ptr++];
+            scanPtr = retptr;
+            b = buff.get(ptr++);
             flen = (b & 0xFF);
 
-            b = buff[ptr++];
+            b = buff.get(ptr++);
             b <<= 8;
             flen |= (b & 0xFF00);
 
             if (longField) {
-                b = buff[ptr++];
+                b = buff.get(ptr++);
                 b <<= 16;
                 flen |= (b & 0xFF0000);
 
-                b = buff[ptr++];
+                b = buff.get(ptr++);
                 b <<= 24;
                 flen |= (b & 0x7F000000);
             }
@@ -125,29 +287,22 @@ final class AnalyzeBlock {
             ptr++;
 
             // 圧縮長
-            int complen = buff[qtr++] & 0xFF;
+            int complen = buff.get(qtr++) & 0xFF;
 
             // 見出し語属性 skip
             qtr++;
 
             // 見出し語圧縮位置保存
             int indexStringLen = Utils.getLengthToNextZero(buff, qtr) + 1;
-            System.arraycopy(buff, qtr, compBuff, complen, indexStringLen);
+            Utils.copyBytes(buff, qtr, compBuff, complen, indexStringLen);
             qtr += indexStringLen;
             complen += indexStringLen;
 
-            // 見出し語の方が短ければ不一致
-            if (complen < searchWord.length) {
-                if (once) {
-                    return false;
-                } else {
-                    continue;
-                }
-            }
-
             // 前方一致で比較
-            boolean equal = true;
-            for (int i = 0; i < searchWord.length; i++) {
+            // 見出し語の方が短ければ不一致だが、検索語を超えていれば打ち切れるよう比較はする
+            boolean equal = complen >= searchLen;
+            final int cmpLen = Math.min(complen, searchLen);
+            for (int i = 0; i < cmpLen; i++) {
                 if (compBuff[i] != searchWord[i]) {
                     equal = false;
                     int cc = compBuff[i] & 0xFF;
@@ -175,6 +330,8 @@ final class AnalyzeBlock {
 
     /**
      * 最後の検索結果の単語を返す.
+     * <p>
+     * Only the record bytes are copied and located here; fields are decoded by PdicElement on demand.
      *
      * @return search result
      */
@@ -183,18 +340,6 @@ final class AnalyzeBlock {
             return null;
         }
         final PdicElement.PdicElementBuilder elementBuilder = new PdicElement.PdicElementBuilder();
-        String indexstr = Utils.decodetoCharBuffer(mainCharset, compBuff, 0, compLen).toString();
-        elementBuilder.setIndexWord(indexstr);
-        // ver6対応 見出し語が、<検索インデックス><TAB><表示用文字列>の順に
-        // 設定されていてるので、分割する。
-        // それ以前のverではdispに空文字列を保持させる。
-        final int tab = indexstr.indexOf('\t');
-        if (tab == -1) {
-            elementBuilder.setHeadWord("");
-        } else {
-            elementBuilder.setIndexWord(indexstr.substring(0, tab));
-            elementBuilder.setHeadWord(indexstr.substring(tab + 1));
-        }
 
         byte attr;
 
@@ -214,39 +359,35 @@ final class AnalyzeBlock {
         qtr++;
 
         // 見出し語属性 skip
-        attr = buff[qtr++];
+        attr = buff.get(qtr++);
         elementBuilder.setAttribute(attr);
 
         // 見出し語 skip
         qtr += Utils.getLengthToNextZero(buff, qtr) + 1;
+        final int dataPtr = qtr;
+        int endPtr = nextPtr;
 
         // 訳語
         if ((attr & 0x10) != 0) { // 拡張属性ありの時
             int trnslen = Utils.getLengthToNextZero(buff, qtr);
-            elementBuilder.setTranslation(Utils.decodetoCharBuffer(mainCharset, buff, qtr, trnslen)
-                    .toString()
-                    .replace("\r", "")
-            );
+            elementBuilder.setTranslationRange(compLen + qtr - dataPtr, trnslen);
             qtr += trnslen; // 次のNULLまでスキップ
 
             // 拡張属性取得
             byte eatr;
-            while (true) {
-                eatr = buff[qtr++];
+            while (qtr < nextPtr) {
+                eatr = buff.get(qtr++);
                 if ((eatr & 0x80) != 0) {
                     break;
                 }
                 if ((eatr & (0x10 | 0x40)) == 0) { // バイナリOFF＆圧縮OFFの場合
                     if ((eatr & 0x0F) == 0x01) { // 用例
                         int len = Utils.getLengthToNextZero(buff, qtr);
-                        elementBuilder.setExample(Utils.decodetoCharBuffer(mainCharset, buff, qtr, len)
-                                .toString()
-                                .replace("\r", "")
-                        );
+                        elementBuilder.setExampleRange(compLen + qtr - dataPtr, len);
                         qtr += len; // 次のNULLまでスキップ
                     } else if ((eatr & 0x0F) == 0x02) { // 発音
                         int len = Utils.getLengthToNextZero(buff, qtr);
-                        elementBuilder.setPronunciation(Utils.decodetoCharBuffer(mainCharset, buff, qtr, len).toString());
+                        elementBuilder.setPronunciationRange(compLen + qtr - dataPtr, len);
                         qtr += len; // 次のNULLまでスキップ
                     }
                 } else {
@@ -254,13 +395,17 @@ final class AnalyzeBlock {
                     break;
                 }
             }
+            endPtr = qtr;
         } else {
             // 残り全部が訳文
-            elementBuilder.setTranslation(Utils.decodetoCharBuffer(mainCharset, buff, qtr, nextPtr - qtr)
-                    .toString()
-                    .replace("\r", "")
-            );
+            elementBuilder.setTranslationRange(compLen, nextPtr - qtr);
         }
+        // 見出し語と訳語データをまとめて保持する
+        final byte[] record = new byte[compLen + endPtr - dataPtr];
+        System.arraycopy(compBuff, 0, record, 0, compLen);
+        Utils.copyBytes(buff, dataPtr, record, compLen, endPtr - dataPtr);
+        elementBuilder.setRecord(record, compLen);
+        counters.entriesDecoded++;
         return elementBuilder.build();
     }
 }
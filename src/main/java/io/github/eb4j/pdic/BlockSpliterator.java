@@ -0,0 +1,95 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator of all entries over a range of index entries.
+ * <p>
+ * Every index entry points to one data block, and the compressed index word starts afresh at each block,
+ * so a range of blocks is parsed independently of others with its own {@link AnalyzeBlock}. The range is
+ * split in halves for parallel streams running on a fork/join pool. Blocks are read bypassing the block
+ * cache.
+ */
+final class BlockSpliterator implements Spliterator<PdicElement> {
+    private final DictionaryData dictionaryData;
+    private final AnalyzeBlock analyze = new AnalyzeBlock();
+    private int index;
+    private final int end;
+    private boolean inBlock = false;
+
+    /**
+     * Create spliterator.
+     * @param dictionaryData dictionary.
+     * @param from first index number, inclusive.
+     * @param end last index number, exclusive.
+     */
+    BlockSpliterator(final DictionaryData dictionaryData, final int from, final int end) {
+        this.dictionaryData = dictionaryData;
+        this.index = from;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super PdicElement> action) {
+        try {
+            while (true) {
+                if (inBlock && analyze.nextRecord()) {
+                    action.accept(analyze.getRecord());
+                    return true;
+                }
+                inBlock = false;
+                if (index >= end) {
+                    return false;
+                }
+                inBlock = dictionaryData.loadBlock(analyze, dictionaryData.getBlockNo(index++), false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<PdicElement> trySplit() {
+        // the prefix must come first in order, so a spliterator in the middle of a block is not split
+        final int remaining = end - index;
+        if (inBlock || remaining < 2) {
+            return null;
+        }
+        final int mid = index + remaining / 2;
+        final Spliterator<PdicElement> prefix = new BlockSpliterator(dictionaryData, index, mid);
+        index = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        // number of blocks; entries per block is not known in advance
+        return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.pdic;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of encoded index words.
+ * <p>
+ * A word is hashed once into 64 bits, and the bit positions are derived from its two halves by double
+ * hashing. Index words of ver.6 are an index and a head word joined by TAB, so a word is added up to the
+ * TAB, which is what an exact match compares. A lookup for a word the filter rejects is definitely absent.
+ * The filter is immutable after it is built and shared between threads.
+ */
+final class BloomFilter {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MAX_HASHES = 16;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final int wordCount;
+    private final int bitsPerWord;
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * Filter of given words.
+     * @param hashes hashes of words by {@link #hash(byte[], int)}.
+     * @param wordCount number of hashes.
+     * @param bitsPerWord bits of filter for a word.
+     */
+    BloomFilter(final long[] hashes, final int wordCount, final int bitsPerWord) {
+        this(new long[(int) ((Math.max(1L, (long) wordCount * bitsPerWord) + 63) / 64)], wordCount, bitsPerWord,
+                hashCountOf(bitsPerWord));
+        for (int i = 0; i < wordCount; i++) {
+            add(hashes[i]);
+        }
+    }
+
+    /**
+     * Filter read from a file.
+     * @param bits bit array.
+     * @param wordCount number of words added.
+     * @param bitsPerWord bits of filter for a word.
+     * @param hashCount number of hash functions.
+     */
+    BloomFilter(final long[] bits, final int wordCount, final int bitsPerWord, final int hashCount) {
+        this.bits = bits;
+        this.bitCount = bits.length * 64L;
+        this.wordCount = wordCount;
+        this.bitsPerWord = bitsPerWord;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Optimal number of hash functions, bits per word times ln 2.
+     * @param bitsPerWord bits of filter for a word.
+     * @return number of hash functions.
+     */
+    static int hashCountOf(final int bitsPerWord) {
+        return Math.max(1, Math.min(MAX_HASHES, (int) Math.round(bitsPerWord * Math.log(2))));
+    }
+
+    /**
+     * Hash encoded word up to TAB or its end.
+     * @param word encoded word.
+     * @param len length of word.
+     * @return 64 bits hash.
+     */
+    static long hash(final byte[] word, final int len) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < len && word[i] != 0x09; i++) {
+            h ^= word[i] & 0xFF;
+            h *= FNV_PRIME;
+        }
+        // murmur3 fmix64 to spread FNV over both halves
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void add(final long hash) {
+        long combined = hash;
+        final long step = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (combined & Long.MAX_VALUE) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+            combined += step;
+        }
+    }
+
+    /**
+     * May the search word exist?
+     * <p>
+     * A word containing TAB matches index words beyond the part added, so it is always passed.
+     * @param key encoded search word.
+     * @param len length of key.
+     * @return false when the word is definitely absent.
+     */
+    boolean mightContain(final byte[] key, final int len) {
+        queries.increment();
+        if (containsTab(key, len)) {
+            bypassed.increment();
+            return true;
+        }
+        final long hash = hash(key, len);
+        long combined = hash;
+        final long step = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (combined & Long.MAX_VALUE) % bitCount;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                negatives.increment();
+                return false;
+            }
+            combined += step;
+        }
+        return true;
+    }
+
+    /**
+     * Count a word the filter passed but was not found.
+     * <p>
+     * A word containing TAB is passed without test, so its miss is not a false positive of the filter.
+     * @param key encoded search word.
+     * @param len length of key.
+     */
+    void falsePositive(final byte[] key, final int len) {
+        if (!containsTab(key, len)) {
+            falsePositives.increment();
+        }
+    }
+
+    private static boolean containsTab(final byte[] key, final int len) {
+        for (int i = 0; i < len; i++) {
+            if (key[i] == 0x09) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long[] getBits() {
+        return bits;
+    }
+
+    int getWordCount() {
+        return wordCount;
+    }
+
+    int getBitsPerWord() {
+        return bitsPerWord;
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Size of the bit array.
+     * @return size in bytes.
+     */
+    long getSize() {
+        return bits.length * 8L;
+    }
+
+    /**
+     * Get snapshot of statistics.
+     * @return statistics.
+     */
+    PdicFilterStatistics getStatistics() {
+        // (1 - e^(-kn/m))^k
+        final double expected = Math.pow(1 - Math.exp(-(double) hashCount * wordCount / bitCount), hashCount);
+        return new PdicFilterStatistics(wordCount, getSize(), hashCount, expected, queries.sum(),
+                negatives.sum(), falsePositives.sum(), bypassed.sum());
+    }
+}
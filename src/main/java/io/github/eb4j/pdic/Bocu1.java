@@ -0,0 +1,348 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic;
+
+import java.util.Arrays;
+
+/**
+ * BOCU-1 codec of the dictionary body.
+ * <p>
+ * BOCU-1 writes each code point as the difference from a state derived from the previous one, in one
+ * to four bytes. Bytes up to 0x20 are written as is and all but space reset the state, which is why
+ * TAB and NUL can separate fields of a record. The codec works on array ranges and writes to arrays
+ * given by the caller, so it does not allocate except in the methods returning a new array or String.
+ * <p>
+ * Behavior follows ICU: an unpaired surrogate is written as its code point except a lead surrogate at
+ * end of input, which is substituted by 0x1a, and a malformed sequence up to an illegal trail byte is
+ * decoded as U+FFFD and resets the state.
+ * @see <a href="https://www.unicode.org/notes/tn6/">Unicode Technical Note #6: BOCU-1</a>
+ */
+final class Bocu1 {
+    private static final int ASCII_PREV = 0x40;
+    private static final int MIDDLE = 0x90;
+    private static final int MIN = 0x21;
+    private static final int RESET = 0xff;
+    private static final int SPACE = 0x20;
+    private static final int SUBSTITUTE = 0x1a;
+    private static final int TRAIL_CONTROLS_COUNT = 20;
+    private static final int TRAIL_COUNT = 243;
+    private static final int TRAIL_OFFSET = 13;
+
+    private static final int START_POS_2 = 0xd0;
+    private static final int START_POS_3 = 0xfb;
+    private static final int START_POS_4 = 0xfe;
+    private static final int START_NEG_2 = 0x50;
+    private static final int START_NEG_3 = 0x25;
+    private static final int START_NEG_4 = 0x22;
+
+    private static final int REACH_POS_1 = 0x3f;
+    private static final int REACH_NEG_1 = -0x40;
+    private static final int REACH_POS_2 = REACH_POS_1 + (START_POS_3 - START_POS_2) * TRAIL_COUNT;
+    private static final int REACH_NEG_2 = REACH_NEG_1 - (START_NEG_2 - START_NEG_3) * TRAIL_COUNT;
+    private static final int REACH_POS_3 = REACH_POS_2 + (START_POS_4 - START_POS_3) * TRAIL_COUNT * TRAIL_COUNT;
+    private static final int REACH_NEG_3 = REACH_NEG_2 - (START_NEG_3 - START_NEG_4) * TRAIL_COUNT * TRAIL_COUNT;
+
+    private static final byte[] TRAIL_TO_BYTE = {
+            0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x10, 0x11, 0x12, 0x13,
+            0x14, 0x15, 0x16, 0x17, 0x18, 0x19, 0x1c, 0x1d, 0x1e, 0x1f};
+    private static final int[] BYTE_TO_TRAIL = new int[SPACE + 1];
+
+    static {
+        Arrays.fill(BYTE_TO_TRAIL, -1);
+        for (int i = 0; i < TRAIL_TO_BYTE.length; i++) {
+            BYTE_TO_TRAIL[TRAIL_TO_BYTE[i]] = i;
+        }
+    }
+
+    /**
+     * Hide utility class constructor.
+     */
+    private Bocu1() { }
+
+    /**
+     * Maximum length of encoded string.
+     * <p>
+     * A BMP character takes three bytes at most, or four bytes just after a supplementary character
+     * which takes four bytes for two chars.
+     * @param length length of string in chars.
+     * @return maximum length in bytes.
+     */
+    static int maxEncodedLength(final int length) {
+        return length * 3;
+    }
+
+    /**
+     * Encode string.
+     * @param src string to encode.
+     * @return encoded bytes.
+     */
+    static byte[] encode(final CharSequence src) {
+        final byte[] buffer = new byte[maxEncodedLength(src.length())];
+        final int len = encode(src, buffer);
+        final byte[] result = new byte[len];
+        System.arraycopy(buffer, 0, result, 0, len);
+        return result;
+    }
+
+    /**
+     * Encode string into given array.
+     * @param src string to encode.
+     * @param dst destination array, at least {@link #maxEncodedLength(int)} of the string length long.
+     * @return length of encoded bytes.
+     */
+    static int encode(final CharSequence src, final byte[] dst) {
+        final int length = src.length();
+        int prev = ASCII_PREV;
+        int pos = 0;
+        int i = 0;
+        while (i < length) {
+            int c = src.charAt(i++);
+            if (c <= SPACE) {
+                if (c != SPACE) {
+                    prev = ASCII_PREV;
+                }
+                dst[pos++] = (byte) c;
+                continue;
+            }
+            if (Character.isHighSurrogate((char) c)) {
+                if (i == length) {
+                    dst[pos++] = SUBSTITUTE;
+                    break;
+                }
+                final char trail = src.charAt(i);
+                if (Character.isLowSurrogate(trail)) {
+                    c = Character.toCodePoint((char) c, trail);
+                    i++;
+                }
+            }
+            pos = encodeDiff(c - prev, dst, pos);
+            prev = prev(c);
+        }
+        return pos;
+    }
+
+    private static int encodeDiff(final int value, final byte[] dst, final int pos) {
+        if (value >= REACH_NEG_1 && value <= REACH_POS_1) {
+            dst[pos] = (byte) (MIDDLE + value);
+            return pos + 1;
+        }
+        int diff = value;
+        int lead;
+        int count;
+        if (diff > 0) {
+            if (diff <= REACH_POS_2) {
+                diff -= REACH_POS_1 + 1;
+                lead = START_POS_2;
+                count = 1;
+            } else if (diff <= REACH_POS_3) {
+                diff -= REACH_POS_2 + 1;
+                lead = START_POS_3;
+                count = 2;
+            } else {
+                diff -= REACH_POS_3 + 1;
+                lead = START_POS_4;
+                count = 3;
+            }
+        } else {
+            if (diff >= REACH_NEG_2) {
+                diff -= REACH_NEG_1;
+                lead = START_NEG_2;
+                count = 1;
+            } else if (diff >= REACH_NEG_3) {
+                diff -= REACH_NEG_2;
+                lead = START_NEG_3;
+                count = 2;
+            } else {
+                diff -= REACH_NEG_3;
+                lead = START_NEG_4;
+                count = 3;
+            }
+        }
+        // 剰余を下位の後続バイトから書き、残りを先行バイトに足す
+        for (int k = count; k > 0; k--) {
+            int m = diff % TRAIL_COUNT;
+            diff /= TRAIL_COUNT;
+            if (m < 0) {
+                diff--;
+                m += TRAIL_COUNT;
+            }
+            dst[pos + k] = trailToByte(m);
+        }
+        dst[pos] = (byte) (lead + diff);
+        return pos + count + 1;
+    }
+
+    /**
+     * Decode range of array.
+     * @param src source array.
+     * @param pos start position.
+     * @param len length in bytes.
+     * @return decoded string.
+     */
+    static String decode(final byte[] src, final int pos, final int len) {
+        final char[] chars = new char[maxDecodedLength(len)];
+        return new String(chars, 0, decode(src, pos, len, chars, 0));
+    }
+
+    /**
+     * Maximum length of decoded string.
+     * <p>
+     * A supplementary character near the previous one takes a byte for two chars.
+     * @param length length of encoded bytes.
+     * @return maximum length in chars.
+     */
+    static int maxDecodedLength(final int length) {
+        return length * 2;
+    }
+
+    /**
+     * Decode range of array into given array.
+     * @param src source array.
+     * @param pos start position.
+     * @param len length in bytes.
+     * @param dst destination array, which has at least {@link #maxDecodedLength(int)} chars from dstPos.
+     * @param dstPos position to write in destination.
+     * @return number of chars written.
+     */
+    static int decode(final byte[] src, final int pos, final int len, final char[] dst, final int dstPos) {
+        final int end = pos + len;
+        int prev = ASCII_PREV;
+        int out = dstPos;
+        int i = pos;
+        while (i < end) {
+            final int b = src[i++] & 0xFF;
+            if (b <= SPACE) {
+                if (b != SPACE) {
+                    prev = ASCII_PREV;
+                }
+                dst[out++] = (char) b;
+                continue;
+            }
+            if (b >= START_NEG_2 && b < START_POS_2) {
+                final int c = prev + b - MIDDLE;
+                out = put(c, dst, out);
+                prev = prev(c);
+                continue;
+            }
+            if (b == RESET) {
+                prev = ASCII_PREV;
+                continue;
+            }
+            int diff;
+            int count;
+            if (b >= START_POS_2) {
+                if (b < START_POS_3) {
+                    diff = (b - START_POS_2) * TRAIL_COUNT + REACH_POS_1 + 1;
+                    count = 1;
+                } else if (b < START_POS_4) {
+                    diff = (b - START_POS_3) * TRAIL_COUNT * TRAIL_COUNT + REACH_POS_2 + 1;
+                    count = 2;
+                } else {
+                    diff = REACH_POS_3 + 1;
+                    count = 3;
+                }
+            } else {
+                if (b >= START_NEG_3) {
+                    diff = (b - START_NEG_2) * TRAIL_COUNT + REACH_NEG_1;
+                    count = 1;
+                } else if (b > MIN) {
+                    diff = (b - START_NEG_3) * TRAIL_COUNT * TRAIL_COUNT + REACH_NEG_2;
+                    count = 2;
+                } else {
+                    diff = -TRAIL_COUNT * TRAIL_COUNT * TRAIL_COUNT + REACH_NEG_3;
+                    count = 3;
+                }
+            }
+            int weight = 1;
+            for (int k = 1; k < count; k++) {
+                weight *= TRAIL_COUNT;
+            }
+            boolean valid = true;
+            for (; count > 0; count--) {
+                if (i == end) {
+                    valid = false;
+                    break;
+                }
+                final int t = byteToTrail(src[i++] & 0xFF);
+                if (t < 0) {
+                    valid = false;
+                    break;
+                }
+                diff += t * weight;
+                weight /= TRAIL_COUNT;
+            }
+            final int c = prev + diff;
+            if (!valid || c < 0 || c > Character.MAX_CODE_POINT) {
+                dst[out++] = '\uFFFD';
+                prev = ASCII_PREV;
+                continue;
+            }
+            out = put(c, dst, out);
+            prev = prev(c);
+        }
+        return out - dstPos;
+    }
+
+    private static int put(final int c, final char[] dst, final int pos) {
+        if (c < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            dst[pos] = (char) c;
+            return pos + 1;
+        }
+        dst[pos] = Character.highSurrogate(c);
+        dst[pos + 1] = Character.lowSurrogate(c);
+        return pos + 2;
+    }
+
+    private static byte trailToByte(final int t) {
+        if (t < TRAIL_CONTROLS_COUNT) {
+            return TRAIL_TO_BYTE[t];
+        }
+        return (byte) (t + TRAIL_OFFSET);
+    }
+
+    private static int byteToTrail(final int b) {
+        if (b <= SPACE) {
+            return BYTE_TO_TRAIL[b];
+        }
+        return b - TRAIL_OFFSET;
+    }
+
+    /**
+     * State after a code point.
+     * <p>
+     * It is the middle of the 128 block of the code point, or fixed in Hiragana, CJK ideographs and
+     * Hangul so that text of those scripts is written mostly in two bytes.
+     */
+    private static int prev(final int c) {
+        if (c < 0x3040 || c > 0xd7a3) {
+            return (c & ~0x7f) + ASCII_PREV;
+        }
+        if (c <= 0x309f) {
+            return 0x3070;
+        }
+        if (c >= 0x4e00 && c <= 0x9fa5) {
+            return 0x4e00 - REACH_NEG_2;
+        }
+        if (c >= 0xac00) {
+            return (0xd7a3 + 0xac00) / 2;
+        }
+        return (c & ~0x7f) + ASCII_PREV;
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size bounded cache with primitive int keys and CLOCK eviction.
+ * <p>
+ * Entries are weighted, typically by their size in bytes, and the total weight is kept under the
+ * given budget. The cache is split into shards guarded by their own lock, each of them an open
+ * addressing hash table whose slots are swept by a clock hand to find a victim, so keys are never
+ * boxed and the memory use does not depend on GC timing.
+ *
+ * @param <V> type of cached values.
+ * @author Hiroshi Miura
+ */
+final class ClockCache<V> {
+    private static final int MAX_SHARDS = 16;
+
+    private final Shard[] shards;
+    private final int shardShift;
+    private final long maxWeight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     * @param maxWeight total weight budget, 0 disables the cache.
+     * @param expectedWeight typical weight of an entry to choose number of shards.
+     */
+    ClockCache(final long maxWeight, final int expectedWeight) {
+        this.maxWeight = Math.max(0, maxWeight);
+        // keep at least 64 typical entries in a shard.
+        long entries = this.maxWeight / Math.max(1, expectedWeight);
+        int count = 1;
+        while (count < MAX_SHARDS && entries / (count * 2) >= 64) {
+            count *= 2;
+        }
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(this.maxWeight / count, evictions);
+        }
+        shardShift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    private static int mix(final int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Shard shardOf(final int hash) {
+        if (shards.length == 1) {
+            return shards[0];
+        }
+        return shards[hash >>> shardShift];
+    }
+
+    /**
+     * Is cache enabled?
+     * @return true when cache has a budget.
+     */
+    boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    /**
+     * Total weight budget.
+     * @return budget, 0 when disabled.
+     */
+    long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Get cached value.
+     * @param key key.
+     * @return value, or null when not cached.
+     */
+    @SuppressWarnings("unchecked")
+    V get(final int key) {
+        if (maxWeight == 0) {
+            return null;
+        }
+        int hash = mix(key);
+        Object value = shardOf(hash).get(key, hash);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return (V) value;
+    }
+
+    /**
+     * Put value when absent.
+     * @param key key.
+     * @param value value to cache.
+     * @param weight weight of value.
+     * @return value already cached for the key, or given value.
+     */
+    @SuppressWarnings("unchecked")
+    V putIfAbsent(final int key, final V value, final int weight) {
+        if (maxWeight == 0) {
+            return value;
+        }
+        int hash = mix(key);
+        return (V) shardOf(hash).putIfAbsent(key, hash, value, weight);
+    }
+
+    /**
+     * Can a value be put for the key without evicting others?
+     * <p>
+     * Each shard has its own share of the budget and keys are spread over shards by hash, so a shard
+     * may be full while the cache as a whole is not.
+     * @param key key.
+     * @param weight weight of value.
+     * @return true when the key is cached or its shard has room for the weight.
+     */
+    boolean hasRoom(final int key, final int weight) {
+        if (maxWeight == 0) {
+            return false;
+        }
+        int hash = mix(key);
+        return shardOf(hash).hasRoom(key, hash, weight);
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * Get snapshot of statistics.
+     * @return statistics.
+     */
+    PdicCacheStatistics getStatistics() {
+        long size = 0;
+        long weight = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.size;
+                weight += shard.weight;
+            }
+        }
+        return new PdicCacheStatistics(hits.sum(), misses.sum(), evictions.sum(), size, weight, maxWeight);
+    }
+
+    private static final class Shard {
+        private final long maxShardWeight;
+        private final LongAdder evictions;
+        private int[] keys;
+        private Object[] values;
+        private int[] weights;
+        private boolean[] refs;
+        private int mask;
+        private int size;
+        private long weight;
+        private int hand;
+
+        Shard(final long maxShardWeight, final LongAdder evictions) {
+            this.maxShardWeight = maxShardWeight;
+            this.evictions = evictions;
+            allocate(16);
+        }
+
+        private void allocate(final int capacity) {
+            keys = new int[capacity];
+            values = new Object[capacity];
+            weights = new int[capacity];
+            refs = new boolean[capacity];
+            mask = capacity - 1;
+            hand = 0;
+        }
+
+        private int find(final int key, final int hash) {
+            int i = hash & mask;
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        synchronized Object get(final int key, final int hash) {
+            int i = find(key, hash);
+            if (i < 0) {
+                return null;
+            }
+            refs[i] = true;
+            return values[i];
+        }
+
+        synchronized boolean hasRoom(final int key, final int hash, final int w) {
+            return find(key, hash) >= 0 || weight + w <= maxShardWeight;
+        }
+
+        synchronized Object putIfAbsent(final int key, final int hash, final Object value, final int w) {
+            int i = find(key, hash);
+            if (i >= 0) {
+                refs[i] = true;
+                return values[i];
+            }
+            if (w > maxShardWeight) {
+                return value;
+            }
+            while (weight + w > maxShardWeight && size > 0) {
+                evict();
+            }
+            if ((size + 1) * 2 > values.length) {
+                resize(values.length * 2);
+            }
+            insert(key, hash, value, w, false);
+            return value;
+        }
+
+        private void insert(final int key, final int hash, final Object value, final int w, final boolean ref) {
+            int i = hash & mask;
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            weights[i] = w;
+            refs[i] = ref;
+            size++;
+            weight += w;
+        }
+
+        private void resize(final int capacity) {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            int[] oldWeights = weights;
+            boolean[] oldRefs = refs;
+            allocate(capacity);
+            size = 0;
+            weight = 0;
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    insert(oldKeys[i], mix(oldKeys[i]), oldValues[i], oldWeights[i], oldRefs[i]);
+                }
+            }
+        }
+
+        /**
+         * Sweep clock hand and remove the first entry not referenced since last sweep.
+         */
+        private void evict() {
+            while (true) {
+                hand = (hand + 1) & mask;
+                if (values[hand] == null) {
+                    continue;
+                }
+                if (refs[hand]) {
+                    refs[hand] = false;
+                } else {
+                    remove(hand);
+                    // an entry may be shifted back into the slot, so look at it again next time.
+                    hand = (hand - 1) & mask;
+                    evictions.increment();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Remove slot with backward shift deletion, so no tombstone is left in the table.
+         */
+        private void remove(final int slot) {
+            size--;
+            weight -= weights[slot];
+            values[slot] = null;
+            int i = slot;
+            int j = slot;
+            while (true) {
+                j = (j + 1) & mask;
+                if (values[j] == null) {
+                    return;
+                }
+                int home = mix(keys[j]) & mask;
+                boolean stay;
+                if (i <= j) {
+                    stay = i < home && home <= j;
+                } else {
+                    stay = i < home || home <= j;
+                }
+                if (!stay) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    weights[i] = weights[j];
+                    refs[i] = refs[j];
+                    values[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        synchronized void clear() {
+            Arrays.fill(values, null);
+            size = 0;
+            weight = 0;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Dictionary file shared by lookup threads.
+ * <p>
+ * A FileChannel is closed when a thread blocked in its I/O is interrupted, which would break the
+ * dictionary for all other threads. The channel is reopened when it is found closed by an interrupt
+ * rather than by {@link #close()}, the read, size or map is retried, and the interrupt status of the
+ * interrupted thread is restored after it.
+ */
+final class DictionaryChannel implements Closeable {
+    private final File file;
+    private volatile FileChannel channel;
+    private volatile boolean closed;
+
+    /**
+     * Open dictionary file.
+     * @param file dictionary file.
+     * @throws IOException when open failed.
+     */
+    DictionaryChannel(final File file) throws IOException {
+        this.file = file;
+        channel = open();
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    /**
+     * Size of file.
+     * @return size in bytes.
+     * @throws IOException when the channel is closed.
+     */
+    long size() throws IOException {
+        return execute(FileChannel::size);
+    }
+
+    /**
+     * Map region of file for read.
+     * <p>
+     * The mapping stays valid when the channel is closed or reopened.
+     * @param position start of region.
+     * @param size size of region.
+     * @return mapped buffer.
+     * @throws IOException when map failed.
+     */
+    MappedByteBuffer map(final long position, final long size) throws IOException {
+        return execute(current -> current.map(FileChannel.MapMode.READ_ONLY, position, size));
+    }
+
+    /**
+     * ファイルの指定位置からバッファが一杯になるまで読み込む.
+     * <p>
+     * Positional read does not move the channel position, so it is safe to call from several threads.
+     *
+     * @param dst destination buffer
+     * @param position file position to start read
+     * @return number of bytes read, or -1 when position is at end of file.
+     * @throws IOException when read error happened or the file is closed.
+     */
+    int readFully(final ByteBuffer dst, final long position) throws IOException {
+        final int start = dst.position();
+        return execute(current -> {
+            // 開き直した後は読み込み済みの続きから読む
+            while (dst.hasRemaining()) {
+                if (current.read(dst, position + dst.position() - start) < 0) {
+                    if (dst.position() == start) {
+                        return -1;
+                    }
+                    break;
+                }
+            }
+            return dst.position() - start;
+        });
+    }
+
+    /**
+     * Run operation on the channel, reopening the channel and retrying when it is closed by an interrupt.
+     * <p>
+     * The interrupt status of the interrupted thread is restored after the operation.
+     *
+     * @param operation operation on the channel.
+     * @param <T> type of result.
+     * @return result of operation.
+     * @throws IOException when the operation failed or the file is closed.
+     */
+    private <T> T execute(final ChannelOperation<T> operation) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                final FileChannel current = channel;
+                try {
+                    return operation.apply(current);
+                } catch (ClosedChannelException e) {
+                    if (closed) {
+                        throw e;
+                    }
+                    // 割り込みで閉じられたので、割り込み状態を退避して開き直す
+                    final boolean flagged = Thread.interrupted();
+                    if (flagged || e instanceof ClosedByInterruptException) {
+                        interrupted = true;
+                    }
+                    reopen(current);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Operation on the channel.
+     * @param <T> type of result.
+     */
+    @FunctionalInterface
+    private interface ChannelOperation<T> {
+        T apply(FileChannel channel) throws IOException;
+    }
+
+    private synchronized void reopen(final FileChannel broken) throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        // 他のスレッドが開き直していなければ開く
+        if (channel == broken) {
+            channel = open();
+        }
+    }
+
+    /**
+     * Close file.
+     * @throws IOException when close failed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+}
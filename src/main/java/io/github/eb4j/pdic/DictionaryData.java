@@ -18,51 +18,86 @@
 
 package io.github.eb4j.pdic;
 
-import com.ibm.icu.charset.CharsetICU;
-import org.apache.commons.io.FileUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
+ * Dictionary data and index.
+ * <p>
+ * An instance is immutable after {@link #readIndexBlock(File)} returns; all search state is kept in
+ * {@link SearchCursor} and the file is read with positional I/O, so lookups may run concurrently.
+ * <p>
+ * In memory-mapped mode the index area and the dictionary body are mapped with {@link FileChannel#map}
+ * and data blocks are handed to {@link AnalyzeBlock} as offsets in the mapping without copying.
+ * Otherwise blocks read from the file are kept in a size bounded block cache keyed by block number.
+ * <p>
+ * The index is searched on a table of the first 8 bytes of index words, which takes 8 bytes per index
+ * entry, and the index area is compared only on a tie. With {@link PdicLoadOptions#isOffHeapIndex()} the
+ * pointer table, the first bytes table and the index area are held in direct buffers or mappings.
+ * <p>
+ * Exact match lookup by {@link #getEntries(String)} takes a cursor from a small pool owned by the
+ * dictionary, so a lookup which finds nothing allocates nothing when the block is cached or mapped.
  * @author wak (Apache-2.0)
  * @author Hiroshi Miura
  */
 class DictionaryData {
 
     private static final int SECTOR_SIZE = 0x200;
+    private static final int PAGE_SIZE = 0x1000;
+    private static final int READ_AHEAD_SIZE = 1024 * 1024;
 
-    private final RandomAccessFile sourceStream;
+    private final DictionaryChannel sourceChannel;
     private final File file;
-    private final List<PdicElement> searchResults = new ArrayList<>();
     private final int start;
     private final int size;
     private final int blockBits;
     private final int nIndex;
     private final int blocksize;
-    private final Charset mainCharset = CharsetICU.forNameICU("BOCU-1");
-    private final AnalyzeBlock analyze;
     private final IndexCache indexCache;
 
-    private boolean match;
-    private int searchmax; // 最大検索件数
+    private final int bodyPtr;
+    private final ByteBuffer mappedBody;
+    private final ClockCache<ByteBuffer> blockCache;
+    private final ResultCache resultCache;
+    private final SearchCursorPool cursors = new SearchCursorPool(Runtime.getRuntime().availableProcessors());
 
-    private int bodyPtr;
-    private int[] indexPtr;
-    private int lastIndex = 0;
+    private volatile int searchmax; // 最大検索件数
+    private volatile PdicLookupListener lookupListener;
+
+    private final boolean offHeapIndex;
+    private IntBuffer indexPtr;
+    private boolean indexPtrMapped;
+    private LongBuffer indexPrefix;
+    private boolean indexCacheUsed;
+    private long cacheWriteNanos;
+    private final long warmUpBlockBudget;
+    private final int bloomFilterBitsPerWord;
+    private BloomFilter bloomFilter;
+    private final boolean loadNormalizedIndex;
+    private volatile NormalizedIndex normalizedIndex;
+    private File indexCacheFile;
+    private volatile int warmUpSink;
 
     DictionaryData(@NotNull final File file, final int start, final int size, final int nindex, final boolean blockbits,
-                   final int blocksize, final int searchMax) throws FileNotFoundException {
+                   final int blocksize, final int searchMax, @NotNull final PdicLoadOptions options)
+            throws IOException {
         this.file = file;
         this.start = start;
         this.size = size;
@@ -74,9 +109,107 @@ class DictionaryData {
         }
         this.blocksize = blocksize;
         this.searchmax = searchMax;
-        sourceStream = new RandomAccessFile(file, "r");
-        indexCache = new IndexCache(sourceStream, this.start, this.size);
-        analyze = new AnalyzeBlock();
+        this.offHeapIndex = options.isOffHeapIndex();
+        this.warmUpBlockBudget = options.getBlockCacheSize();
+        this.bloomFilterBitsPerWord = options.getBloomFilterBitsPerWord();
+        this.loadNormalizedIndex = options.isNormalizedIndex();
+        resultCache = new ResultCache(options.getResultCacheSize());
+        bodyPtr = start + size; // 本体位置=( index開始位置＋インデックスのサイズ)
+        sourceChannel = new DictionaryChannel(file);
+        long bodySize = sourceChannel.size() - bodyPtr;
+        if (options.isMemoryMapped() && bodySize > 0 && bodySize <= Integer.MAX_VALUE) {
+            mappedBody = sourceChannel.map(bodyPtr, bodySize);
+            indexCache = new IndexCache(sourceChannel.map(start, size));
+            blockCache = new ClockCache<>(0, 1);
+        } else {
+            // a body larger than 2GB cannot be mapped at once, so it is read from the channel.
+            mappedBody = null;
+            indexCache = new IndexCache(sourceChannel, this.start, this.size, options.getIndexCacheSize(),
+                    offHeapIndex);
+            blockCache = new ClockCache<>(options.getBlockCacheSize(), SECTOR_SIZE);
+        }
+    }
+
+    /**
+     * Close source file.
+     * <p>
+     * Idle search cursors, which refer to data blocks, are dropped. Mapped buffers stay valid until they
+     * are garbage collected.
+     * @throws IOException when close failed.
+     */
+    void close() throws IOException {
+        resultCache.clear();
+        cursors.clear();
+        sourceChannel.close();
+    }
+
+    /**
+     * Is the dictionary accessed through memory mapping?
+     * @return true when memory-mapped, otherwise false.
+     */
+    boolean isMemoryMapped() {
+        return mappedBody != null;
+    }
+
+    /**
+     * Get statistics of index segment cache.
+     * @return statistics.
+     */
+    PdicCacheStatistics getIndexCacheStatistics() {
+        return indexCache.getStatistics();
+    }
+
+    /**
+     * Get statistics of data block cache.
+     * @return statistics.
+     */
+    PdicCacheStatistics getBlockCacheStatistics() {
+        return blockCache.getStatistics();
+    }
+
+    /**
+     * Get statistics of lookup result cache.
+     * @return statistics.
+     */
+    PdicCacheStatistics getResultCacheStatistics() {
+        return resultCache.getStatistics();
+    }
+
+    /**
+     * Get memory used by the index structures and caches.
+     * @return memory usage snapshot.
+     */
+    PdicMemoryUsage getMemoryUsage() {
+        long heap = indexCache.getHeapSize() + blockCache.getStatistics().getWeightedSize()
+                + resultCache.getStatistics().getWeightedSize();
+        long direct = indexCache.getDirectSize();
+        long mapped = indexCache.getMappedSize();
+        if (mappedBody != null) {
+            mapped += mappedBody.capacity();
+        }
+        final long ptrSize = indexPtr.capacity() * 4L;
+        if (indexPtrMapped) {
+            mapped += ptrSize;
+        } else if (indexPtr.isDirect()) {
+            direct += ptrSize;
+        } else {
+            heap += ptrSize;
+        }
+        final BloomFilter filter = bloomFilter;
+        if (filter != null) {
+            heap += filter.getSize();
+        }
+        final NormalizedIndex normalized = normalizedIndex;
+        if (normalized != null) {
+            heap += normalized.getSize();
+        }
+        final long prefixSize = indexPrefix.capacity() * 8L;
+        if (indexPrefix.isDirect()) {
+            direct += prefixSize;
+        } else {
+            heap += prefixSize;
+        }
+        return new PdicMemoryUsage(heap, direct, mapped);
     }
 
     /**
@@ -85,20 +218,48 @@ class DictionaryData {
      * @return index of block
      */
     public int searchIndexBlock(final String word) {
-        int min = 0;
+        final byte[] key = Bocu1.encode(word);
+        return searchIndexBlock(key, key.length);
+    }
+
+    /**
+     * インデックス領域を検索.
+     *
+     * @param key encoded search word.
+     * @param keyLen length of key.
+     * @return index of block
+     */
+    int searchIndexBlock(final byte[] key, final int keyLen) {
+        return searchIndexBlock(key, keyLen, 0, null);
+    }
+
+    /**
+     * インデックス領域を指定位置以降で検索.
+     * <p>
+     * Index words are compared by the table of their first 8 bytes, and the index area is read only when
+     * the key and the word have the same first 8 bytes.
+     *
+     * @param key encoded search word.
+     * @param keyLen length of key.
+     * @param from index number to start; the key must not be less than its index word.
+     * @param counters counters of lookup, or null.
+     * @return index of block
+     */
+    private int searchIndexBlock(final byte[] key, final int keyLen, final int from,
+                                 final LookupCounters counters) {
+        final long keyPrefix = packPrefix(key, keyLen);
+        int min = from;
         int max = nIndex - 1;
 
-        ByteBuffer buffer = Utils.encodetoByteBuffer(mainCharset, word);
-        int limit = buffer.limit();
-        byte[] bytes = new byte[limit];
-        System.arraycopy(buffer.array(), 0, bytes, 0, limit);
         for (int i = 0; i < 32; i++) {
             if ((max - min) <= 1) {
                 return min;
             }
             final int look = (int) (((long) min + max) / 2);
-            final int len = indexPtr[look + 1] - indexPtr[look] - blockBits;
-            final int comp = indexCache.compare(bytes, 0, bytes.length, indexPtr[look], len);
+            if (counters != null) {
+                counters.indexProbes++;
+            }
+            final int comp = compareIndex(key, keyLen, keyPrefix, look, counters);
             if (comp < 0) {
                 max = look;
             } else if (comp > 0) {
@@ -110,93 +271,316 @@ class DictionaryData {
         return min;
     }
 
+    /**
+     * Compare key with index word in the same way as {@link IndexCache#compare}.
+     *
+     * @param key encoded search word.
+     * @param keyLen length of key.
+     * @param keyPrefix first bytes of key packed by {@link #packPrefix(byte[], int)}.
+     * @param look index number.
+     * @param counters counters of lookup, or null.
+     * @return negative when key is less, positive when key is greater, otherwise 0.
+     */
+    private int compareIndex(final byte[] key, final int keyLen, final long keyPrefix, final int look,
+                             final LookupCounters counters) {
+        final long prefix = indexPrefix.get(look);
+        if (keyLen < IndexCache.PREFIX_BYTES) {
+            // 短い検索語は先頭部分だけで決まる
+            if (keyPrefix == prefix) {
+                return -1;  // 見出し語と一致
+            }
+            final int diff = Long.numberOfLeadingZeros(keyPrefix ^ prefix) >>> 3;
+            if (diff < keyLen) {
+                return Long.compareUnsigned(keyPrefix, prefix);
+            }
+            // 検索語の直後が'\t'なら一致とみなす
+            if (((prefix >>> ((IndexCache.PREFIX_BYTES - 1 - diff) * 8)) & 0xFF) == 0x09) {
+                return 0;
+            }
+            return -1;
+        }
+        if (keyPrefix != prefix) {
+            return Long.compareUnsigned(keyPrefix, prefix);
+        }
+        return compareIndexWord(key, keyLen, look, counters);
+    }
+
+    /**
+     * Compare key with index word in the index area.
+     *
+     * @param key encoded search word.
+     * @param keyLen length of key.
+     * @param look index number.
+     * @param counters counters of lookup, or null.
+     * @return negative when key is less, positive when key is greater, otherwise 0.
+     */
+    int compareIndexWord(final byte[] key, final int keyLen, final int look, final LookupCounters counters) {
+        final int ptr = indexPtr.get(look);
+        final int len = indexPtr.get(look + 1) - ptr - blockBits;
+        if (counters != null) {
+            counters.indexCompares++;
+        }
+        return indexCache.compare(key, 0, keyLen, ptr, len, counters);
+    }
+
+    /**
+     * Pack first bytes of key into a long in big endian order.
+     *
+     * @param key encoded search word.
+     * @param keyLen length of key.
+     * @return packed bytes padded with zero.
+     */
+    private static long packPrefix(final byte[] key, final int keyLen) {
+        final int len = Math.min(keyLen, IndexCache.PREFIX_BYTES);
+        long prefix = 0;
+        for (int i = 0; i < len; i++) {
+            prefix |= (key[i] & 0xFFL) << ((IndexCache.PREFIX_BYTES - 1 - i) * 8);
+        }
+        return prefix;
+    }
+
     /**
      * Read index blocks.
+     * <p>
+     * A valid index cache file is mapped and used in place. A missing or stale cache, which was made for
+     * another dictionary, an older version of the dictionary or in an older format, is rebuilt and written.
      *
      * @return true when successfully read block, otherwise false.
      */
     public boolean readIndexBlock(@Nullable final File indexcache) throws IOException {
-        bodyPtr = start + size; // 本体位置=( index開始位置＋インデックスのサイズ)
-        return getIndexFromCache(indexcache) || createIndexAndWriteCache(indexcache);
-    }
-
-    private boolean getIndexFromCache(@Nullable File indexcache) throws IOException {
-        if (indexcache != null && indexcache.isFile()) {
-            try (FileInputStream fis = new FileInputStream(indexcache)) {
-                byte[] buff = new byte[(nIndex + 1) * 4];
-                int readlen = fis.read(buff);
-                if (readlen == buff.length) {
-                    indexPtr = new int[nIndex + 1];
-                    int ptr = 0;
-                    for (int i = 0; i <= nIndex; i++) {
-                        int b;
-                        int dat;
-                        b = buff[ptr++];
-                        b &= 0xFF;
-                        dat = b;
-                        b = buff[ptr++];
-                        b &= 0xFF;
-                        dat |= (b << 8);
-                        b = buff[ptr++];
-                        b &= 0xFF;
-                        dat |= (b << 16);
-                        b = buff[ptr++];
-                        b &= 0xFF;
-                        dat |= (b << 24);
-                        indexPtr[i] = dat;
-                    }
-                    return true;
+        if (getIndexFromCache(indexcache) || createIndexAndWriteCache(indexcache)) {
+            final LongBuffer prefixes;
+            if (offHeapIndex) {
+                prefixes = ByteBuffer.allocateDirect(nIndex * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+            } else {
+                prefixes = LongBuffer.allocate(nIndex);
+            }
+            if (indexCache.createPrefixes(nIndex, indexPtr, prefixes)) {
+                indexPrefix = prefixes;
+                if (bloomFilterBitsPerWord > 0) {
+                    bloomFilter = readOrCreateFilter(indexcache);
+                }
+                indexCacheFile = indexcache;
+                if (loadNormalizedIndex) {
+                    getNormalizedIndex();
                 }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean getIndexFromCache(@Nullable final File indexcache) throws IOException {
+        if (indexcache != null) {
+            IntBuffer table = getIndexCacheFile().read(indexcache);
+            if (table != null) {
+                indexPtr = table;
+                indexPtrMapped = true;
+                indexCacheUsed = true;
+                return true;
             }
         }
         return false;
     }
 
-    private boolean createIndexAndWriteCache(@Nullable File indexcache) throws IOException {
+    private boolean createIndexAndWriteCache(@Nullable final File indexcache) throws IOException {
         // インデックスの先頭から見出し語のポインタを拾っていく
-        final int nindex = nIndex;
-        indexPtr =  new int[nindex + 1]; // インデックスポインタの配列確保
-        if (indexCache.createIndex(blockBits, nindex, indexPtr)) {
+        final int[] table = new int[nIndex + 1]; // インデックスポインタの配列確保
+        if (indexCache.createIndex(blockBits, nIndex, table)) {
             if (indexcache != null) {
-                byte[] buff = new byte[indexPtr.length * 4];
-                int p = 0;
-                for (int c = 0; c <= nindex; c++) {
-                    int data = indexPtr[c];
-                    buff[p++] = (byte) (data & 0xFF);
-                    data >>= 8;
-                    buff[p++] = (byte) (data & 0xFF);
-                    data >>= 8;
-                    buff[p++] = (byte) (data & 0xFF);
-                    data >>= 8;
-                    buff[p++] = (byte) (data & 0xFF);
-                }
-                try (FileOutputStream fos = FileUtils.openOutputStream(indexcache)) {
-                    fos.write(buff, 0, buff.length);
+                IndexCacheFile cacheFile = getIndexCacheFile();
+                final long writeStart = System.nanoTime();
+                cacheFile.write(indexcache, table);
+                cacheWriteNanos = System.nanoTime() - writeStart;
+                if (offHeapIndex) {
+                    // 書いたキャッシュをマップして使う
+                    indexPtr = cacheFile.read(indexcache);
+                    if (indexPtr != null) {
+                        indexPtrMapped = true;
+                        return true;
+                    }
                 }
             }
+            if (offHeapIndex) {
+                indexPtr = ByteBuffer.allocateDirect(table.length * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+                indexPtr.put(table).clear();
+            } else {
+                indexPtr = IntBuffer.wrap(table);
+            }
             return true;
         }
-        indexPtr = null;
         return false;
     }
 
+    private BloomFilter readOrCreateFilter(@Nullable final File indexcache) throws IOException {
+        if (indexcache == null) {
+            return createFilter();
+        }
+        final File filterFile = IndexCacheFile.getFilterFile(indexcache);
+        final IndexCacheFile cacheFile = getIndexCacheFile();
+        BloomFilter filter = cacheFile.readFilter(filterFile, bloomFilterBitsPerWord);
+        if (filter == null) {
+            filter = createFilter();
+            cacheFile.writeFilter(filterFile, filter);
+        }
+        return filter;
+    }
+
+    /**
+     * Build Bloom filter by a scan of all data blocks.
+     * <p>
+     * Entries of the same index part are adjacent in index order and are added once.
+     */
+    private BloomFilter createFilter() throws IOException {
+        final AnalyzeBlock analyze = new AnalyzeBlock();
+        long[] hashes = new long[Math.max(16, nIndex * 4)];
+        int count = 0;
+        for (int i = 0; i < nIndex; i++) {
+            if (!loadBlock(analyze, getBlockNo(i), false)) {
+                continue;
+            }
+            while (analyze.nextRecord()) {
+                final long hash = BloomFilter.hash(analyze.getIndexWord(), analyze.getIndexWordLength());
+                if (count > 0 && hashes[count - 1] == hash) {
+                    continue;
+                }
+                if (count == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, count * 2);
+                }
+                hashes[count++] = hash;
+            }
+        }
+        return new BloomFilter(hashes, count, bloomFilterBitsPerWord);
+    }
+
+    /**
+     * Get normalized index, which is read or built at first call.
+     * @return normalized index.
+     * @throws IOException when read error happened.
+     */
+    private NormalizedIndex getNormalizedIndex() throws IOException {
+        NormalizedIndex index = normalizedIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = normalizedIndex;
+                if (index == null) {
+                    index = readOrCreateNormalizedIndex(indexCacheFile);
+                    normalizedIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private NormalizedIndex readOrCreateNormalizedIndex(@Nullable final File indexcache) throws IOException {
+        if (indexcache == null) {
+            return createNormalizedIndex();
+        }
+        final File normalizedFile = IndexCacheFile.getNormalizedFile(indexcache);
+        final IndexCacheFile cacheFile = getIndexCacheFile();
+        NormalizedIndex index = cacheFile.readNormalized(normalizedFile);
+        if (index == null) {
+            index = createNormalizedIndex();
+            cacheFile.writeNormalized(normalizedFile, index);
+        }
+        return index;
+    }
+
+    /**
+     * Build normalized index by a scan of all data blocks.
+     */
+    private NormalizedIndex createNormalizedIndex() throws IOException {
+        final AnalyzeBlock analyze = new AnalyzeBlock();
+        final NormalizedIndex.Builder builder = new NormalizedIndex.Builder(nIndex);
+        for (int i = 0; i < nIndex; i++) {
+            builder.startBlock();
+            if (!loadBlock(analyze, getBlockNo(i), false)) {
+                continue;
+            }
+            while (analyze.nextRecord()) {
+                builder.add(analyze.getIndexWord(), analyze.getIndexWordLength());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get statistics of the negative lookup filter.
+     * @return statistics, or null when the filter is disabled.
+     */
+    @Nullable
+    PdicFilterStatistics getFilterStatistics() {
+        final BloomFilter filter = bloomFilter;
+        if (filter == null) {
+            return null;
+        }
+        return filter.getStatistics();
+    }
+
+    /**
+     * Was the index read from a valid index cache file at load?
+     * @return true when read from cache, false when built.
+     */
+    boolean isIndexCacheUsed() {
+        return indexCacheUsed;
+    }
+
+    /**
+     * Time of writing the index cache file at load.
+     * @return time in nanoseconds, 0 when not written.
+     */
+    long getCacheWriteNanos() {
+        return cacheWriteNanos;
+    }
+
+    private IndexCacheFile getIndexCacheFile() throws IOException {
+        // 辞書ヘッダーと拡張ヘッダー
+        ByteBuffer header = ByteBuffer.allocate(start);
+        sourceChannel.readFully(header, 0);
+        header.flip();
+        return new IndexCacheFile(file, header, nIndex, blockBits);
+    }
+
     /**
      * num個目の見出し語の実体が入っているブロック番号を返す.
      */
-    public int getBlockNo(final int num) {
-        int blkptr = indexPtr[num] - blockBits;
-        lastIndex = num;
+    public int getBlockNo(final SearchCursor cursor, final int num) {
+        cursor.setLastIndex(num);
+        return getBlockNo(num);
+    }
+
+    /**
+     * Number of index entries, which is the number of data blocks.
+     * @return number of index entries.
+     */
+    int getIndexCount() {
+        return nIndex;
+    }
+
+    /**
+     * Block number of index entry without moving a cursor.
+     * @param num index number.
+     * @return block number.
+     */
+    int getBlockNo(final int num) {
+        return getBlockNo(num, true);
+    }
+
+    /**
+     * Block number of index entry.
+     * @param num index number.
+     * @param evict false to read without evicting cached index segments.
+     * @return block number.
+     */
+    private int getBlockNo(final int num, final boolean evict) {
+        int blkptr = indexPtr.get(num) - blockBits;
         if (blockBits == 4) {
-            return indexCache.getInt(blkptr);
+            return indexCache.getInt(blkptr, evict);
         } else {
-            return indexCache.getShort(blkptr);
+            return indexCache.getShort(blkptr, evict);
         }
     }
 
-    boolean hasExactMatch() {
-        return match;
-    }
-
     public int getSearchMax() {
         return searchmax;
     }
@@ -205,87 +589,536 @@ class DictionaryData {
         searchmax = m;
     }
 
-    // 単語を検索する
-    public boolean searchWord(final String word) throws IOException {
-        // 検索結果クリア
-        int cnt = 0;
-        searchResults.clear();
+    /**
+     * 完全一致する単語を検索する.
+     * <p>
+     * Same as filtering results of a prefix search by index word, but only
+     * entries which match exactly are decoded, and the search stops when no more exact match can follow.
+     *
+     * @param word search word.
+     * @return list of entries, or an immutable empty list when not found.
+     * @throws IOException when read error happened.
+     */
+    List<PdicElement> getEntries(final String word) throws IOException {
+        if (!resultCache.isEnabled()) {
+            return lookupEntries(word);
+        }
+        final ResultCache.Key key = ResultCache.key(PdicLookupMetrics.Type.EXACT, word, searchmax);
+        final List<PdicElement> cached = resultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return resultCache.put(key, lookupEntries(word));
+    }
 
-        int ret = searchIndexBlock(word);
-        match = false;
-        boolean searchret = false;
-        while (true) {
-            // 最終ブロックは超えない
-            if (ret < nIndex) {
-                // 該当ブロック読み出し
-                int block = getBlockNo(ret++);
-                byte[] pblk = readBlockData(block);
-                if (pblk != null) {
-                    analyze.setBuffer(pblk);
-                    analyze.setSearch(word);
-                    searchret = analyze.searchWord();
-                    // 未発見でEOBの時のみもう一回、回る
-                    if (!searchret && analyze.isEob()) {
+    private List<PdicElement> lookupEntries(final String word) throws IOException {
+        final SearchCursor cursor = cursors.acquire();
+        try {
+            final PdicLookupListener listener = lookupListener;
+            final long start = startLookup(cursor, listener);
+            List<PdicElement> results = Collections.emptyList();
+            final int keyLen = cursor.encodeKey(word);
+            final BloomFilter filter = bloomFilter;
+            if (filter == null || filter.mightContain(cursor.getKey(), keyLen)) {
+                if (findFirst(cursor, cursor.getKey(), keyLen)) {
+                    results = collectExactMatches(cursor);
+                }
+                if (filter != null && results.isEmpty()) {
+                    filter.falsePositive(cursor.getKey(), keyLen);
+                }
+            }
+            endLookup(cursor, listener, PdicLookupMetrics.Type.EXACT, results.size(), start);
+            return results;
+        } finally {
+            cursors.release(cursor);
+        }
+    }
+
+    /**
+     * 正規化した見出し語が一致する単語を検索する.
+     * <p>
+     * Entries of the folded word are found in the normalized index and read in index order from their
+     * blocks; the index word of each is folded and compared again because hashes may collide.
+     *
+     * @param word search word.
+     * @return list of entries up to the maximum count, or an immutable empty list when not found.
+     * @throws IOException when read error happened.
+     */
+    List<PdicElement> getEntriesNormalized(final String word) throws IOException {
+        if (!resultCache.isEnabled()) {
+            return lookupEntriesNormalized(word);
+        }
+        final ResultCache.Key key = ResultCache.key(PdicLookupMetrics.Type.NORMALIZED, word, searchmax);
+        final List<PdicElement> cached = resultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return resultCache.put(key, lookupEntriesNormalized(word));
+    }
+
+    private List<PdicElement> lookupEntriesNormalized(final String word) throws IOException {
+        final NormalizedIndex index = getNormalizedIndex();
+        final SearchCursor cursor = cursors.acquire();
+        try {
+            final AnalyzeBlock analyze = cursor.getAnalyze();
+            final LookupCounters counters = analyze.getCounters();
+            final PdicLookupListener listener = lookupListener;
+            final long start = startLookup(cursor, listener);
+            List<PdicElement> results = Collections.emptyList();
+            final String folded = NormalizedIndex.fold(word);
+            final int keyLen = cursor.encodeKey(folded);
+            counters.keyBytes += keyLen;
+            counters.indexProbes++;
+            final int hash = NormalizedIndex.hash(cursor.getKey(), keyLen);
+            int block = -1;
+            int position = 0;
+            for (int pos = index.find(hash); pos >= 0 && pos < index.size() && index.getHash(pos) == hash; pos++) {
+                final int entry = index.getEntry(pos);
+                final int blockIndex = index.getBlockIndex(entry);
+                if (blockIndex != block) {
+                    if (!loadBlock(analyze, getBlockNo(cursor, blockIndex))) {
+                        block = -1;
                         continue;
                     }
+                    block = blockIndex;
+                    position = index.getFirstEntry(blockIndex);
+                }
+                // 同じブロックの後の単語へは続きから進む
+                boolean moved = true;
+                while (position <= entry && moved) {
+                    moved = analyze.nextRecord();
+                    position++;
+                }
+                if (!moved) {
+                    block = -1;
+                    continue;
+                }
+                if (!folded.equals(NormalizedIndex.foldIndexWord(analyze.getIndexWord(),
+                        analyze.getIndexWordLength()))) {
+                    counters.entriesDiscarded++;
+                    continue;
+                }
+                if (results.isEmpty()) {
+                    results = new ArrayList<>();
+                }
+                results.add(analyze.getRecord());
+                if (results.size() >= searchmax) {
+                    break;
                 }
             }
-            // 基本一回で抜ける
-            break;
+            endLookup(cursor, listener, PdicLookupMetrics.Type.NORMALIZED, results.size(), start);
+            return results;
+        } finally {
+            cursors.release(cursor);
         }
-        if (searchret) {
-            // 前方一致するものだけ結果に入れる
+    }
+
+    /**
+     * 編集距離が近い単語を検索する.
+     * <p>
+     * Index words are read in index order from the first block and run through a Levenshtein automaton.
+     * When the automaton is dead at a prefix of an index word, the lookup seeks to the least string which
+     * may be accepted, by the index when it is in a following block, so ranges of keys which cannot match
+     * are skipped without decoding. Once enough entries within some distance are found, the maximum
+     * distance is lowered so that farther entries are skipped too.
+     *
+     * @param word search word.
+     * @param maxEdits maximum edit distance of index part from the word.
+     * @param limit maximum number of entries.
+     * @return list of entries, nearest first and in index order for the same distance.
+     * @throws IOException when read error happened.
+     */
+    List<PdicElement> getEntriesFuzzy(final String word, final int maxEdits, final int limit) throws IOException {
+        final SearchCursor cursor = cursors.acquire();
+        try {
+            final AnalyzeBlock analyze = cursor.getAnalyze();
+            final LookupCounters counters = analyze.getCounters();
+            final PdicLookupListener listener = lookupListener;
+            final long start = startLookup(cursor, listener);
+            final LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, maxEdits);
+            final List<List<PdicElement>> found = new ArrayList<>(maxEdits + 1);
+            for (int i = 0; i <= maxEdits; i++) {
+                found.add(new ArrayList<>());
+            }
+            if (limit <= 0) {
+                automaton.lowerMaxEdits(-1);
+            }
+            byte[] target = null;
+            int targetLen = 0;
+            int blockIndex = -1;
+            boolean loaded = false;
+            while (automaton.getMaxEdits() >= 0) {
+                final boolean moved;
+                if (!loaded) {
+                    moved = false;
+                } else if (target != null) {
+                    moved = analyze.seek(target, targetLen);
+                } else {
+                    moved = analyze.nextRecord();
+                }
+                if (!moved) {
+                    if (++blockIndex >= nIndex) {
+                        break;
+                    }
+                    loaded = loadBlock(analyze, getBlockNo(cursor, blockIndex));
+                    continue;
+                }
+                target = null;
+                final int distance = automaton.match(analyze.getIndexWord(), analyze.getIndexWordLength());
+                if (distance >= 0) {
+                    found.get(distance).add(analyze.getRecord());
+                    // 十分見つかった距離より遠い単語は要らない
+                    int count = 0;
+                    for (int i = 0; i <= automaton.getMaxEdits(); i++) {
+                        count += found.get(i).size();
+                        if (count >= limit) {
+                            automaton.lowerMaxEdits(i - 1);
+                        }
+                    }
+                    continue;
+                }
+                counters.entriesDiscarded++;
+                if (!automaton.isDead()) {
+                    continue;
+                }
+                final String next = automaton.nextTarget();
+                if (next == null) {
+                    break;
+                }
+                targetLen = cursor.encodeKey(next);
+                target = cursor.getKey();
+                counters.keyBytes += targetLen;
+                // 次のブロックの先頭より前なら同じブロックを読み進める
+                final int nextIndex = blockIndex + 1;
+                if (nextIndex < nIndex && compareIndex(target, targetLen, packPrefix(target, targetLen), nextIndex,
+                        counters) >= 0) {
+                    counters.indexProbes++;
+                    blockIndex = searchIndexBlock(target, targetLen, nextIndex, counters);
+                    loaded = loadBlock(analyze, getBlockNo(cursor, blockIndex));
+                }
+            }
+            final List<PdicElement> results = new ArrayList<>();
+            for (List<PdicElement> entries : found) {
+                for (PdicElement entry : entries) {
+                    if (results.size() < limit) {
+                        results.add(entry);
+                    }
+                }
+            }
+            endLookup(cursor, listener, PdicLookupMetrics.Type.FUZZY, results.size(), start);
+            return results;
+        } finally {
+            cursors.release(cursor);
+        }
+    }
+
+    /**
+     * 完全一致する単語があるか調べる.
+     * <p>
+     * Entries are only located and never decoded.
+     *
+     * @param word search word.
+     * @return true when an entry of the word exists.
+     * @throws IOException when read error happened.
+     */
+    boolean hasEntry(final String word) throws IOException {
+        final SearchCursor cursor = cursors.acquire();
+        try {
+            final AnalyzeBlock analyze = cursor.getAnalyze();
+            final PdicLookupListener listener = lookupListener;
+            final long start = startLookup(cursor, listener);
+            boolean found = false;
+            final int keyLen = cursor.encodeKey(word);
+            final BloomFilter filter = bloomFilter;
+            final boolean passed = filter == null || filter.mightContain(cursor.getKey(), keyLen);
+            if (passed && findFirst(cursor, cursor.getKey(), keyLen)) {
+                int cnt = 0;
+                do {
+                    if (analyze.isExactMatch()) {
+                        found = true;
+                        break;
+                    } else if (!analyze.mayHaveExactMatch()) {
+                        break;
+                    }
+                    analyze.getCounters().entriesDiscarded++;
+                    cnt++;
+                } while (cnt < searchmax && hasMoreResult(cursor, true));
+            }
+            int results = 0;
+            if (found) {
+                results = 1;
+            } else if (filter != null && passed) {
+                filter.falsePositive(cursor.getKey(), keyLen);
+            }
+            endLookup(cursor, listener, PdicLookupMetrics.Type.HAS_ENTRY, results, start);
+            return found;
+        } finally {
+            cursors.release(cursor);
+        }
+    }
+
+    /**
+     * 前方一致する単語を検索する.
+     *
+     * @param word search word.
+     * @param cancel future of the lookup to stop reading entries when it is done, or null.
+     * @return list of entries up to the maximum count.
+     * @throws IOException when read error happened.
+     */
+    List<PdicElement> getEntriesPredictive(final String word, final Future<?> cancel) throws IOException {
+        if (!resultCache.isEnabled()) {
+            return lookupEntriesPredictive(word, cancel);
+        }
+        final ResultCache.Key key = ResultCache.key(PdicLookupMetrics.Type.PREDICTIVE, word, searchmax);
+        final List<PdicElement> cached = resultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final List<PdicElement> results = lookupEntriesPredictive(word, cancel);
+        if (cancel != null && cancel.isDone()) {
+            // 途中で打ち切った結果はキャッシュしない
+            return results;
+        }
+        return resultCache.put(key, results);
+    }
+
+    private List<PdicElement> lookupEntriesPredictive(final String word, final Future<?> cancel)
+            throws IOException {
+        final SearchCursor cursor = new SearchCursor();
+        final AnalyzeBlock analyze = cursor.getAnalyze();
+        final PdicLookupListener listener = lookupListener;
+        final long start = startLookup(cursor, listener);
+        final List<PdicElement> results = new ArrayList<>();
+        if (startSearch(cursor, word)) {
+            final int max = searchmax;
             do {
+                if (cancel != null && cancel.isDone()) {
+                    break;
+                }
                 PdicElement res = analyze.getRecord();
                 if (res == null) {
                     break;
                 }
-                // 完全一致するかチェック
-                if (res.getIndexWord().compareTo(word) == 0) {
-                    match = true;
-                }
-                searchResults.add(res);
+                results.add(res);
+            } while (results.size() < max && hasMoreResult(cursor, true));
+        }
+        endLookup(cursor, listener, PdicLookupMetrics.Type.PREDICTIVE, results.size(), start);
+        return results;
+    }
+
+    /**
+     * Set listener of lookup metrics.
+     * @param listener listener, or null to disable.
+     */
+    void setLookupListener(final PdicLookupListener listener) {
+        lookupListener = listener;
+    }
+
+    PdicLookupListener getLookupListener() {
+        return lookupListener;
+    }
 
-                cnt++;
-                // 取得最大件数超えたら打ち切り
-            } while (cnt < searchmax && hasMoreResult(true));
+    private static long startLookup(final SearchCursor cursor, final PdicLookupListener listener) {
+        final LookupCounters counters = cursor.getAnalyze().getCounters();
+        counters.reset(listener != null);
+        counters.jfrEvent = Jfr.beginLookup();
+        if (listener == null) {
+            return 0;
         }
-        return searchret;
+        return System.nanoTime();
     }
 
-    List<PdicElement> getResult() {
-        return searchResults;
+    private static void endLookup(final SearchCursor cursor, final PdicLookupListener listener,
+                                  final PdicLookupMetrics.Type type, final int results, final long start) {
+        final LookupCounters counters = cursor.getAnalyze().getCounters();
+        Jfr.endLookup(counters.jfrEvent, type, counters, results);
+        counters.jfrEvent = null;
+        if (listener != null) {
+            listener.lookupCompleted(counters.toMetrics(type, results, System.nanoTime() - start));
+        }
     }
 
-    public List<PdicElement> getMoreResult() throws IOException {
-        searchResults.clear();
+    /**
+     * 複数の単語を完全一致で検索する.
+     * <p>
+     * Keys are sorted in index byte order and looked up in a single forward pass, so the index search
+     * starts from the block of the previous key and a data block shared by several keys is read and
+     * scanned once.
+     *
+     * @param words search words.
+     * @return map of every distinct search word to its entries, which is empty when not found.
+     * @throws IOException when read error happened.
+     */
+    Map<String, List<PdicElement>> getEntriesBatch(final Collection<String> words) throws IOException {
+        final Map<String, List<PdicElement>> results = new HashMap<>();
+        final List<BatchKey> keys = new ArrayList<>();
+        final SearchCursor cursor = new SearchCursor();
+        final PdicLookupListener listener = lookupListener;
+        final long start = startLookup(cursor, listener);
+        final BloomFilter filter = bloomFilter;
+        for (String word : words) {
+            if (results.putIfAbsent(word, Collections.emptyList()) == null) {
+                int keyLen = cursor.encodeKey(word);
+                if (filter == null || filter.mightContain(cursor.getKey(), keyLen)) {
+                    keys.add(new BatchKey(word, Arrays.copyOf(cursor.getKey(), keyLen)));
+                }
+            }
+        }
+        keys.sort((a, b) -> compareBytes(a.key, b.key));
+
+        final AnalyzeBlock analyze = cursor.getAnalyze();
+        int indexNo = 0;
+        int resultCount = 0;
+        boolean loaded = false;
+        for (BatchKey batchKey : keys) {
+            analyze.setSearch(batchKey.key, batchKey.key.length);
+            analyze.getCounters().keyBytes += batchKey.key.length;
+            indexNo = searchIndexBlock(batchKey.key, batchKey.key.length, indexNo, analyze.getCounters());
+            boolean found = false;
+            while (indexNo < nIndex) {
+                if (loaded && indexNo <= cursor.getLastIndex()) {
+                    // 読込済ブロックの続きから探す
+                    indexNo = cursor.getLastIndex();
+                    analyze.resume();
+                } else {
+                    loaded = loadBlock(analyze, getBlockNo(cursor, indexNo));
+                    if (!loaded) {
+                        break;
+                    }
+                }
+                found = analyze.searchWord();
+                // 未発見でEOBの時のみ次のブロックへ
+                if (found || !analyze.isEob()) {
+                    break;
+                }
+                indexNo++;
+            }
+            if (found) {
+                List<PdicElement> entries = collectExactMatches(cursor);
+                results.put(batchKey.word, entries);
+                resultCount += entries.size();
+            } else if (filter != null) {
+                filter.falsePositive(batchKey.key, batchKey.key.length);
+            }
+        }
+        endLookup(cursor, listener, PdicLookupMetrics.Type.BATCH, resultCount, start);
+        return results;
+    }
+
+    /**
+     * 見つかった単語から完全一致するものを集める.
+     *
+     * @param cursor cursor positioned at the first entry found by prefix search.
+     * @return list of entries, or an immutable empty list when none matches exactly.
+     * @throws IOException when read error happened.
+     */
+    private List<PdicElement> collectExactMatches(final SearchCursor cursor) throws IOException {
+        final AnalyzeBlock analyze = cursor.getAnalyze();
+        List<PdicElement> results = Collections.emptyList();
         int cnt = 0;
-        // 前方一致するものだけ結果に入れる
-        while (cnt < searchmax && hasMoreResult(true)) {
-            PdicElement res = analyze.getRecord();
-            if (res == null) {
+        do {
+            if (analyze.isExactMatch()) {
+                PdicElement res = analyze.getRecord();
+                if (res == null) {
+                    break;
+                }
+                if (results.isEmpty()) {
+                    results = new ArrayList<>();
+                }
+                results.add(res);
+            } else if (!analyze.mayHaveExactMatch()) {
                 break;
+            } else {
+                analyze.getCounters().entriesDiscarded++;
             }
-            searchResults.add(res);
             cnt++;
+        } while (cnt < searchmax && hasMoreResult(cursor, true));
+        return results;
+    }
+
+    private static int compareBytes(final byte[] a, final byte[] b) {
+        final int len = Math.min(a.length, b.length);
+        for (int i = 0; i < len; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) {
+                return c;
+            }
         }
-        return searchResults;
+        return a.length - b.length;
     }
 
-    public boolean hasMoreResult(final boolean incrementptr) throws IOException {
+    /**
+     * Search word of batch lookup with its encoded key.
+     */
+    private static final class BatchKey {
+        private final String word;
+        private final byte[] key;
+
+        BatchKey(final String word, final byte[] key) {
+            this.word = word;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 前方一致検索を開始する.
+     *
+     * @param cursor search cursor.
+     * @param word search word.
+     * @return true when found, and the cursor is positioned at the first entry.
+     * @throws IOException when read error happened.
+     */
+    boolean startSearch(final SearchCursor cursor, final String word) throws IOException {
+        final int keyLen = cursor.encodeKey(word);
+        return findFirst(cursor, cursor.getKey(), keyLen);
+    }
+
+    /**
+     * 検索語に前方一致する最初の単語にカーソルを合わせる.
+     *
+     * @param cursor search cursor.
+     * @param key encoded search word, referred by the cursor while the search goes.
+     * @param keyLen length of key.
+     * @return true when found.
+     * @throws IOException when read error happened.
+     */
+    private boolean findFirst(final SearchCursor cursor, final byte[] key, final int keyLen) throws IOException {
+        final AnalyzeBlock analyze = cursor.getAnalyze();
+        analyze.setSearch(key, keyLen);
+        analyze.getCounters().keyBytes += keyLen;
+        int ret = searchIndexBlock(key, keyLen, 0, analyze.getCounters());
+        boolean searchret = false;
+        while (true) {
+            // 最終ブロックは超えない
+            if (ret < nIndex) {
+                // 該当ブロック読み出し
+                int block = getBlockNo(cursor, ret++);
+                if (loadBlock(analyze, block)) {
+                    searchret = analyze.searchWord();
+                    // 未発見でEOBの時のみもう一回、回る
+                    if (!searchret && analyze.isEob()) {
+                        continue;
+                    }
+                }
+            }
+            // 基本一回で抜ける
+            break;
+        }
+        return searchret;
+    }
+
+    public boolean hasMoreResult(final SearchCursor cursor, final boolean incrementptr) throws IOException {
+        final AnalyzeBlock analyze = cursor.getAnalyze();
         boolean result = analyze.hasMoreResult(incrementptr);
         if (!result) {
             if (analyze.isEob()) {    // EOBなら次のブロック読み出し
-                int nextindex = lastIndex + 1;
+                int nextindex = cursor.getLastIndex() + 1;
                 // 最終ブロックは超えない
                 if (nextindex < nIndex) {
-                    int block = getBlockNo(nextindex);
+                    int block = getBlockNo(cursor, nextindex);
 
                     // 該当ブロック読み出し
-                    byte[] pblk = readBlockData(block);
-
-                    if (pblk != null) {
-                        analyze.setBuffer(pblk);
+                    if (loadBlock(analyze, block)) {
                         result = analyze.hasMoreResult(incrementptr);
                     }
                 }
@@ -295,17 +1128,71 @@ class DictionaryData {
     }
 
     /**
-     * データブロックを読み込み.
+     * データブロックをAnalyzeBlockに設定する.
      *
-     * @param blkno block number to seek when read.
-     * @return data block read.
-     * @throws IOException when read error happended.
+     * @param analyze block analyzer.
+     * @param blkno block number.
+     * @return true when block is set, false when block does not exist.
+     * @throws IOException when read error happened.
      */
-    byte[] readBlockData(final int blkno) throws IOException {
+    private boolean loadBlock(final AnalyzeBlock analyze, final int blkno) throws IOException {
+        return loadBlock(analyze, blkno, true);
+    }
+
+    /**
+     * データブロックをAnalyzeBlockに設定する.
+     *
+     * @param analyze block analyzer.
+     * @param blkno block number.
+     * @param useCache false to read the block without the block cache, e.g. for a full scan which would
+     *                 evict all frequently used blocks.
+     * @return true when block is set, false when block does not exist.
+     * @throws IOException when read error happened.
+     */
+    boolean loadBlock(final AnalyzeBlock analyze, final int blkno, final boolean useCache) throws IOException {
+        final LookupCounters counters = analyze.getCounters();
+        counters.blocksLoaded++;
+        if (mappedBody != null) {
+            final int pos = getMappedBlockPosition(blkno);
+            if (pos < 0) {
+                return false;
+            }
+            analyze.setBuffer(mappedBody, pos);
+            return true;
+        }
+        ByteBuffer pblk = null;
+        if (useCache) {
+            pblk = blockCache.get(blkno);
+        }
+        if (pblk == null) {
+            long start = 0;
+            if (counters.timed) {
+                start = System.nanoTime();
+            }
+            final Object event = Jfr.beginBlockRead();
+            pblk = readBlockFromFile(blkno);
+            if (counters.timed) {
+                counters.blockReadNanos += System.nanoTime() - start;
+            }
+            if (pblk == null) {
+                return false;
+            }
+            Jfr.endBlockRead(event, blkno, pblk.capacity());
+            counters.blocksRead++;
+            counters.bytesRead += pblk.capacity();
+            if (useCache) {
+                pblk = blockCache.putIfAbsent(blkno, pblk, pblk.capacity());
+            }
+        }
+        analyze.setBuffer(pblk);
+        return true;
+    }
+
+    private ByteBuffer readBlockFromFile(final int blkno) throws IOException {
         byte[] buff = new byte[SECTOR_SIZE];
         byte[] pbuf = buff;
-        sourceStream.seek(bodyPtr + (long) blkno * blocksize);
-        if (sourceStream.read(pbuf, 0, SECTOR_SIZE) < 0) {
+        final long position = bodyPtr + (long) blkno * blocksize;
+        if (sourceChannel.readFully(ByteBuffer.wrap(pbuf, 0, SECTOR_SIZE), position) < 0) {
             return null;
         }
 
@@ -322,14 +1209,147 @@ class DictionaryData {
             if (len * blocksize > 0x200) {
                 pbuf = new byte[blocksize * len];
                 System.arraycopy(buff, 0, pbuf, 0, SECTOR_SIZE);
-                if (sourceStream.read(pbuf, SECTOR_SIZE, len * blocksize - SECTOR_SIZE) < 0) {
+                if (sourceChannel.readFully(ByteBuffer.wrap(pbuf, SECTOR_SIZE, len * blocksize - SECTOR_SIZE),
+                        position + SECTOR_SIZE) < 0) {
                     return null;
                 }
             }
         } else {
-            pbuf = null;
+            return null;
+        }
+        return ByteBuffer.wrap(pbuf);
+    }
+
+    /**
+     * マップされた本体でのデータブロック位置を返す.
+     *
+     * @param blkno block number.
+     * @return position of block in mapped body, or -1 when block is out of range or empty.
+     */
+    private int getMappedBlockPosition(final int blkno) {
+        final long offset = (long) blkno * blocksize;
+        if (offset + 2 > mappedBody.capacity()) {
+            return -1;
+        }
+        final int pos = (int) offset;
+        if (getBlockLength(mappedBody, pos) <= 0) {
+            return -1;
+        }
+        return pos;
+    }
+
+    /**
+     * Read the dictionary into memory ahead of lookups.
+     * <p>
+     * Blocks read by warm-up are put into the block cache without counting cache misses, and are not
+     * reported to the lookup listener.
+     *
+     * @param level warm-up level.
+     * @param cancel future to stop when it is done, or null.
+     * @throws IOException when read error happened.
+     */
+    void warmUp(final PdicWarmUp level, final Future<?> cancel) throws IOException {
+        if (level == PdicWarmUp.NONE) {
+            return;
+        }
+        indexCache.warmUp(cancel);
+        if (indexPtrMapped) {
+            // マップされた.idxはIntBufferなのでページを触って読み込ませる
+            int sum = 0;
+            for (int i = 0; i < indexPtr.capacity(); i += PAGE_SIZE / 4) {
+                sum += indexPtr.get(i);
+            }
+            warmUpSink = sum;
+        }
+        if (level == PdicWarmUp.INDEX || isDone(cancel)) {
+            return;
+        }
+        if (level == PdicWarmUp.FULL) {
+            if (mappedBody != null) {
+                ((MappedByteBuffer) mappedBody).load();
+                return;
+            }
+            readAhead(cancel);
+        }
+        warmUpBlocks(cancel);
+    }
+
+    private static boolean isDone(final Future<?> cancel) {
+        return cancel != null && cancel.isDone();
+    }
+
+    /**
+     * Read the dictionary body sequentially so that the OS keeps it in the page cache.
+     */
+    private void readAhead(final Future<?> cancel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_AHEAD_SIZE);
+        final long end = sourceChannel.size();
+        long position = bodyPtr;
+        while (position < end && !isDone(cancel)) {
+            buffer.clear();
+            int len = sourceChannel.readFully(buffer, position);
+            if (len < 0) {
+                break;
+            }
+            position += len;
+        }
+    }
+
+    /**
+     * Read data blocks up to the budget of the block cache.
+     * <p>
+     * Which words will be looked up is not known, so blocks are taken at even intervals of the index to
+     * spread the budget over the whole dictionary. A block whose shard of the cache is full is skipped, so no
+     * block read here is evicted by another. In memory-mapped mode the pages of the blocks are touched.
+     */
+    private void warmUpBlocks(final Future<?> cancel) throws IOException {
+        if (warmUpBlockBudget <= 0 || nIndex <= 0) {
+            return;
+        }
+        final long average = Math.max(SECTOR_SIZE, (sourceChannel.size() - bodyPtr) / nIndex);
+        final int stride = (int) Math.max(1, Math.min(nIndex, nIndex * average / warmUpBlockBudget));
+        long loaded = 0;
+        int sum = 0;
+        for (int i = 0; i < nIndex && loaded < warmUpBlockBudget && !isDone(cancel); i += stride) {
+            // 索引を飛び飛びに読むので、先に読み込んだ索引のセグメントを追い出さない
+            final int blkno = getBlockNo(i, false);
+            if (mappedBody != null) {
+                final int pos = getMappedBlockPosition(blkno);
+                if (pos < 0) {
+                    continue;
+                }
+                final int end = (int) Math.min(mappedBody.capacity(),
+                        pos + (long) getBlockLength(mappedBody, pos) * blocksize);
+                for (int p = pos; p < end; p += PAGE_SIZE) {
+                    sum += mappedBody.get(p);
+                }
+                loaded += end - pos;
+            } else {
+                // 割り当て先のシャードが満杯なら、読み込んだブロックを追い出さないよう飛ばす
+                if (!blockCache.hasRoom(blkno, SECTOR_SIZE)) {
+                    continue;
+                }
+                final ByteBuffer block = readBlockFromFile(blkno);
+                if (block == null || !blockCache.hasRoom(blkno, block.capacity())) {
+                    continue;
+                }
+                blockCache.putIfAbsent(blkno, block, block.capacity());
+                loaded += block.capacity();
+            }
+        }
+        warmUpSink = sum;
+    }
+
+    private static int getBlockLength(final ByteBuffer buffer, final int pos) {
+        // length of block.
+        int len = ((int) (buffer.get(pos))) & 0xFF;
+        len |= (((int) (buffer.get(pos + 1))) & 0xFF) << 8;
+
+        // ブロック長判定
+        if ((len & 0x8000) != 0) { // 32bit
+            len &= 0x7FFF;
         }
-        return pbuf;
+        return len;
     }
 
 }
@@ -18,94 +18,258 @@
 
 package io.github.eb4j.pdic;
 
-import com.ibm.icu.charset.CharsetICU;
-
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.lang.ref.WeakReference;
-import java.util.WeakHashMap;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.Future;
 
 /**
+ * Index area accessor with segment cache.
+ * <p>
+ * A small index area is read at once as a single fixed segment, and a large one is read in segments of
+ * 1KB with positional I/O and kept in a size bounded {@link ClockCache}, so an instance can be shared
+ * between threads. When the index area is memory-mapped, the mapping is used as the fixed segment, and
+ * when it is held off-heap, the whole area is read into a direct buffer as the fixed segment.
  * @author wak (Apache-2.0)
  * @author Hiroshi Miura
  */
 class IndexCache {
     private final boolean fix;
     private final int segmentBlockSize;
-    private final RandomAccessFile randomAccessFile;
+    private final DictionaryChannel fileChannel;
     private final int start;
     private final int size;
-    private final WeakHashMap<Integer, WeakReference<byte[]>> mMap = new WeakHashMap<>();
-    private byte[] fixedBuffer;
+    private final ClockCache<ByteBuffer> segmentCache;
+    private final boolean offHeap;
+    private volatile ByteBuffer fixedBuffer;
+
+    private static final int SCAN_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Number of bytes of a word packed in a long by {@link #createPrefixes(int, IntBuffer, LongBuffer)}.
+     */
+    static final int PREFIX_BYTES = 8;
+
+    IndexCache(final DictionaryChannel channel, final int start, final int size, final long cacheSize) {
+        this(channel, start, size, cacheSize, false);
+    }
 
-    IndexCache(final RandomAccessFile file, final int start, final int size) {
-        randomAccessFile = file;
+    /**
+     * Index area read from the file.
+     * @param channel dictionary file.
+     * @param start position of index area.
+     * @param size size of index area.
+     * @param cacheSize budget of segment cache.
+     * @param offHeap true to hold the whole index area at once in a direct buffer.
+     */
+    IndexCache(final DictionaryChannel channel, final int start, final int size, final long cacheSize,
+               final boolean offHeap) {
+        fileChannel = channel;
         this.start = start;
         this.size = size;
-        if (this.size < 1024 * 512) {
+        this.offHeap = offHeap;
+        if (offHeap || this.size < 1024 * 512) {
             fix = true;
             segmentBlockSize = this.size;
+            segmentCache = new ClockCache<>(0, 1);
         } else {
             fix = false;
             segmentBlockSize = 1024;
+            segmentCache = new ClockCache<>(cacheSize, segmentBlockSize);
+        }
+    }
+
+    IndexCache(final ByteBuffer mappedIndex) {
+        fileChannel = null;
+        start = 0;
+        size = mappedIndex.capacity();
+        fix = true;
+        offHeap = true;
+        segmentBlockSize = size;
+        fixedBuffer = mappedIndex;
+        segmentCache = new ClockCache<>(0, 1);
+    }
+
+    /**
+     * Get statistics of segment cache.
+     * @return statistics.
+     */
+    PdicCacheStatistics getStatistics() {
+        return segmentCache.getStatistics();
+    }
+
+    /**
+     * Get bytes of index area and segments held in the Java heap.
+     * @return size in bytes.
+     */
+    long getHeapSize() {
+        final ByteBuffer buffer = fixedBuffer;
+        long heapSize = segmentCache.getStatistics().getWeightedSize();
+        if (buffer != null && !buffer.isDirect()) {
+            heapSize += buffer.capacity();
+        }
+        return heapSize;
+    }
+
+    /**
+     * Get bytes of index area held in a direct buffer.
+     * @return size in bytes.
+     */
+    long getDirectSize() {
+        final ByteBuffer buffer = fixedBuffer;
+        if (buffer != null && buffer.isDirect() && fileChannel != null) {
+            return buffer.capacity();
+        }
+        return 0;
+    }
+
+    /**
+     * Get bytes of mapped index area.
+     * @return size in bytes.
+     */
+    long getMappedSize() {
+        if (fileChannel == null) {
+            return size;
         }
+        return 0;
+    }
+
+    ByteBuffer getSegment(final int segment) {
+        return getSegment(segment, null, true);
     }
 
-    byte[] getSegment(final int segment) {
-        byte[] segmentData = null;
+    private ByteBuffer getSegment(final int segment, final LookupCounters counters) {
+        return getSegment(segment, counters, true);
+    }
+
+    /**
+     * Get index segment.
+     * @param segment segment number.
+     * @param counters counters of lookup to count segment cache hit or miss, or null.
+     * @param evict false not to evict other segments, the segment read is not cached when its shard is full.
+     * @return segment, or null when read failed.
+     */
+    private ByteBuffer getSegment(final int segment, final LookupCounters counters, final boolean evict) {
+        ByteBuffer segmentData = null;
 
         if (fix) {
-            if (fixedBuffer == null) {
-                fixedBuffer = new byte[size];
-                try {
-                    randomAccessFile.seek(start);
-                    if (randomAccessFile.read(fixedBuffer, 0, size) >= 0) {
-                        return fixedBuffer;
-                    }
-                } catch (IOException ignored) {
-                }
+            ByteBuffer buffer = fixedBuffer;
+            if (buffer == null) {
+                buffer = loadFixedBuffer();
+            }
+            if (buffer != null) {
+                return buffer;
             }
         }
 
-        WeakReference<byte[]> ref = mMap.get(segment);
-        if (ref != null) {
-            segmentData = ref.get();
+        segmentData = segmentCache.get(segment);
+        if (counters != null) {
+            if (segmentData == null) {
+                counters.segmentMisses++;
+            } else {
+                counters.segmentHits++;
+            }
         }
         if (segmentData == null) {
-            segmentData = new byte[segmentBlockSize];
+            segmentData = readSegment(segment, evict);
+        }
+        return segmentData;
+    }
+
+    private ByteBuffer readSegment(final int segment, final boolean evict) {
+        final ByteBuffer segmentData = ByteBuffer.allocate(segmentBlockSize);
+        try {
+            int len = fileChannel.readFully(segmentData.duplicate(), start + (long) segment * segmentBlockSize);
+            if (len == segmentBlockSize || len == size % segmentBlockSize) {
+                if (!evict && !segmentCache.hasRoom(segment, segmentBlockSize)) {
+                    return segmentData;
+                }
+                return segmentCache.putIfAbsent(segment, segmentData, segmentBlockSize);
+            }
+        } catch (IOException ignored) {
+        }
+        return null;
+    }
+
+    /**
+     * Read the index area into memory ahead of lookups.
+     * <p>
+     * The fixed segment is read, or loaded when it is a mapping. Otherwise segments are read into the
+     * segment cache from the top, without counting cache misses. A segment whose shard of the cache is
+     * full is skipped, so warm-up never evicts segments it has just read.
+     * @param cancel future to stop when it is done, or null.
+     */
+    void warmUp(final Future<?> cancel) {
+        if (fix) {
+            final ByteBuffer buffer = getSegment(0);
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).load();
+            }
+            return;
+        }
+        final int segments = (size + segmentBlockSize - 1) / segmentBlockSize;
+        for (int i = 0; i < segments && segmentCache.isEnabled(); i++) {
+            if (cancel != null && cancel.isDone()) {
+                return;
+            }
+            if (!segmentCache.hasRoom(i, segmentBlockSize)) {
+                continue;
+            }
+            if (readSegment(i, false) == null) {
+                return;
+            }
+        }
+    }
+
+    private synchronized ByteBuffer loadFixedBuffer() {
+        if (fixedBuffer == null) {
+            ByteBuffer buffer;
+            if (offHeap) {
+                buffer = ByteBuffer.allocateDirect(size);
+            } else {
+                buffer = ByteBuffer.allocate(size);
+            }
             try {
-                randomAccessFile.seek(start + (long) segment * segmentBlockSize);
-                int len = randomAccessFile.read(segmentData, 0, segmentBlockSize);
-                if (len == segmentBlockSize || len == size % segmentBlockSize) {
-                    mMap.put(segment, new WeakReference<>(segmentData));
-                } else {
-                    return null;
+                if (fileChannel.readFully(buffer.duplicate(), start) >= 0) {
+                    fixedBuffer = buffer;
                 }
-            } catch (IOException e) {
-                return null;
+            } catch (IOException ignored) {
             }
         }
-        return segmentData;
+        return fixedBuffer;
     }
 
 
     public int getShort(final int ptr) {
+        return getShort(ptr, true);
+    }
+
+    /**
+     * Read 16bit little endian value.
+     * @param ptr position in index area.
+     * @param evict false to read without evicting cached segments, as a scan over the whole index does.
+     * @return value.
+     */
+    int getShort(final int ptr, final boolean evict) {
         int segment = ptr / segmentBlockSize;
         int address = ptr % segmentBlockSize;
-        byte[] segmentdata = getSegment(segment++);
+        ByteBuffer segmentdata = getSegment(segment++, null, evict);
 
         int dat = 0;
         if (segmentdata != null) {
             int b;
-            b = segmentdata[address++];
+            b = segmentdata.get(address++);
             b &= 0xFF;
             dat |= b;
 
             if (address >= segmentBlockSize) {
                 address %= segmentBlockSize;
-                segmentdata = getSegment(segment);
+                segmentdata = getSegment(segment, null, evict);
             }
-            b = segmentdata[address];
+            b = segmentdata.get(address);
             b &= 0xFF;
             dat |= (b << 8);
         }
@@ -113,35 +277,45 @@ class IndexCache {
     }
 
     public int getInt(final int ptr) {
+        return getInt(ptr, true);
+    }
+
+    /**
+     * Read 31bit little endian value.
+     * @param ptr position in index area.
+     * @param evict false to read without evicting cached segments, as a scan over the whole index does.
+     * @return value.
+     */
+    int getInt(final int ptr, final boolean evict) {
         int segment = ptr / segmentBlockSize;
         int address = ptr % segmentBlockSize;
-        byte[] segmentdata = getSegment(segment++);
+        ByteBuffer segmentdata = getSegment(segment++, null, evict);
 
         int dat = 0;
         if (segmentdata != null) {
             int b;
-            b = segmentdata[address++];
+            b = segmentdata.get(address++);
             b &= 0xFF;
             dat |= b;
             if (address >= segmentBlockSize) {
                 address %= segmentBlockSize;
-                segmentdata = getSegment(segment++);
+                segmentdata = getSegment(segment++, null, evict);
             }
-            b = segmentdata[address++];
+            b = segmentdata.get(address++);
             b &= 0xFF;
             dat |= (b << 8);
             if (address >= segmentBlockSize) {
                 address %= segmentBlockSize;
-                segmentdata = getSegment(segment++);
+                segmentdata = getSegment(segment++, null, evict);
             }
-            b = segmentdata[address++];
+            b = segmentdata.get(address++);
             b &= 0xFF;
             dat |= (b << 16);
             if (address >= segmentBlockSize) {
                 address %= segmentBlockSize;
-                segmentdata = getSegment(segment);
+                segmentdata = getSegment(segment, null, evict);
             }
-            b = segmentdata[address];
+            b = segmentdata.get(address);
             b &= 0x7F;
             dat |= (b << 24);
         }
@@ -149,11 +323,11 @@ class IndexCache {
     }
 
     @SuppressWarnings("finalparameters")
-    private static int compareArrayAsUnsigned(byte[] aa, int pa, int la, byte[] ab, int pb, int lb) {
+    private static int compareArrayAsUnsigned(byte[] aa, int pa, int la, ByteBuffer ab, int pb, int lb) {
         while (la-- > 0) {
             short sa = aa[pa++];
             if (lb-- > 0) {
-                short sb = ab[pb++];
+                short sb = ab.get(pb++);
                 if (sa != sb) {
                     sa &= 0xFF;
                     sb &= 0xFF;
@@ -164,7 +338,7 @@ class IndexCache {
             }
         }
         if (lb > 0) {
-            short sb = ab[pb];
+            short sb = ab.get(pb);
             if (sb == 0x09) {        // 比較対象の'\t'は'\0'とみなす
                 return 0;
             }
@@ -174,19 +348,37 @@ class IndexCache {
     }
 
     /**
-     *
-     * @param aa
-     * @param pa
-     * @param la
-     * @param ptr
-     * @param len
-     * @return
+     * Compare key with index word as unsigned bytes.
+     * <p>
+     * BOCU-1 keeps code point order in binary order, so the key is compared in encoded form without
+     * decoding the index word.
+     * @param aa encoded key.
+     * @param pa start position of key.
+     * @param la length of key.
+     * @param ptr position of index word in index area.
+     * @param len length of index word.
+     * @return negative when key is less, positive when key is greater, otherwise 0.
      */
-    @SuppressWarnings("finalparameters")
     public int compare(final byte[] aa, final int pa, final int la, final int ptr, final int len) {
+        return compare(aa, pa, la, ptr, len, null);
+    }
+
+    /**
+     * Compare key with index word as unsigned bytes, counting segment cache access.
+     * @param aa encoded key.
+     * @param pa start position of key.
+     * @param la length of key.
+     * @param ptr position of index word in index area.
+     * @param len length of index word.
+     * @param counters counters of lookup, or null.
+     * @return negative when key is less, positive when key is greater, otherwise 0.
+     */
+    @SuppressWarnings("finalparameters")
+    int compare(final byte[] aa, final int pa, final int la, final int ptr, final int len,
+                final LookupCounters counters) {
         int segment = ptr / segmentBlockSize;
         int address = ptr % segmentBlockSize;
-        byte[] segmentdata = getSegment(segment++);
+        ByteBuffer segmentdata = getSegment(segment++, counters);
 
         if (segmentdata == null) {
             return -1;
@@ -197,75 +389,145 @@ class IndexCache {
         }
 
         if (address + len < segmentBlockSize) {
-            Utils.decodetoCharBuffer(CharsetICU.forNameICU("BOCU-1"), segmentdata, address, len);
             return compareArrayAsUnsigned(aa, pa, la, segmentdata, address, len);
         } else {
             int lena = segmentBlockSize - address;
             int leno = Math.min(la, lena);
             int ret = compareArrayAsUnsigned(aa, pa, leno, segmentdata, address, lena);
-            Utils.decodetoCharBuffer(CharsetICU.forNameICU("BOCU-1"), segmentdata, address, lena);
             if (ret != 0) {
                 return ret;
             }
             if (la < lena) {
-                return -1;
+                return 0;  // 検索語の直後が'\t'
             }
             address = 0;
-            segmentdata = getSegment(segment);
-            Utils.decodetoCharBuffer(CharsetICU.forNameICU("BOCU-1"), segmentdata, address, len - lena);
+            segmentdata = getSegment(segment, counters);
+            if (segmentdata == null) {
+                return -1;
+            }
             return compareArrayAsUnsigned(aa, pa + lena, la - lena, segmentdata, address, len - lena);
         }
     }
 
     /**
      * Create index of words.
-     * @param blockBits
-     * @param nIndex
-     * @param indexPtr
+     * <p>
+     * The index area is scanned in one pass, on the fixed segment when it is held at once, otherwise
+     * in large chunks read directly from the file without going through the segment cache. Each entry
+     * is a block number followed by a NUL terminated word.
+     * @param blockBits size of block number.
+     * @param nIndex number of index entries.
+     * @param indexPtr array to store pointers to words, which has nIndex + 1 elements.
      * @return true when success, otherwise false.
      */
     public boolean createIndex(final int blockBits, final int nIndex, final int[] indexPtr) {
-        // インデックスの先頭から見出し語のポインタを拾っていく
-        final int blockSize = 64 * 1024;
-        int[] params = new int[]{0, 0, nIndex, blockSize, blockBits, 1, 0};
+        ByteBuffer chunk;
+        int chunkStart = 0;
+        int chunkEnd;
+        if (fix) {
+            chunk = fixedBuffer;
+            if (chunk == null) {
+                chunk = loadFixedBuffer();
+            }
+            if (chunk == null) {
+                return false;
+            }
+            chunk = chunk.duplicate();
+            chunkEnd = size;
+        } else {
+            chunk = ByteBuffer.allocate(Math.min(size, SCAN_CHUNK_SIZE));
+            chunkEnd = readChunk(chunk, 0);
+        }
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
 
-        boolean hasNext = true;
-        for (int i = 0; hasNext; i++) {
-            hasNext = countIndexWords(params, getSegment(i), indexPtr);
+        // インデックスの先頭から見出し語のポインタを拾っていく
+        int pos = 0;
+        int idx = 0;
+        while (idx < nIndex) {
+            final int wordStart = pos + blockBits;  // ブロック番号サイズポインタを進める
+            final int zero = Utils.indexOfZero(chunk, Math.min(wordStart, chunkEnd) - chunkStart,
+                    chunkEnd - chunkStart);
+            if (zero < 0) {
+                // 見出し語がチャンクをまたぐので、見出し語の先頭から読み直す
+                if (fix || chunkEnd >= size || pos == chunkStart) {
+                    return false;
+                }
+                chunkStart = pos;
+                chunkEnd = chunkStart + readChunk(chunk, chunkStart);
+                continue;
+            }
+            indexPtr[idx++] = wordStart;  // 見出し語部分のポインタを保存
+            pos = chunkStart + zero + 1;
+        }
+        // ターミネータを入れておく
+        if (nIndex > 0) {
+            indexPtr[nIndex] = indexPtr[nIndex - 1] + 1;
+        } else {
+            indexPtr[0] = blockBits;
         }
-        indexPtr[params[0]] = params[1] + blockBits; // ターミネータを入れておく
         return true;
     }
 
-    private boolean countIndexWords(final int[] params, final byte[] buff, final int[] indexPtr) {
-        int curidx = params[0];
-        int curptr = params[1];
-        int max = params[2];
-        int buffmax = params[3];
-        int blockBits = params[4];
-        int found = params[5];
-        int ignore = params[6];
-
-        int i = 0;
-
-        for (; i < buffmax && curidx < max; i++) {
-            if (ignore > 0) {
-                ignore--;
-            } else if (found != 0) {
-                int ptr = curptr + i + blockBits;  // ブロック番号サイズポインタを進める
-                indexPtr[curidx++] = ptr;          // 見出し語部分のポインタを保存
-                ignore = blockBits - 1;
-                found = 0;
-            } else if (buff[i] == 0) {
-                found = 1;
+    /**
+     * Create table of first bytes of index words.
+     * <p>
+     * Up to 8 bytes of each word are packed into a long in big endian order and padded with zero, so
+     * comparing the longs as unsigned gives the order of the words in their first 8 bytes. The index
+     * area is read in the same way as {@link #createIndex(int, int, int[])}.
+     * @param nIndex number of index entries.
+     * @param indexPtr pointers to words.
+     * @param prefixes buffer to store packed words, which has nIndex elements.
+     * @return true when success, otherwise false.
+     */
+    public boolean createPrefixes(final int nIndex, final IntBuffer indexPtr, final LongBuffer prefixes) {
+        ByteBuffer chunk;
+        int chunkStart = 0;
+        int chunkEnd;
+        if (fix) {
+            chunk = fixedBuffer;
+            if (chunk == null) {
+                chunk = loadFixedBuffer();
             }
+            if (chunk == null) {
+                return false;
+            }
+            chunkEnd = size;
+        } else {
+            chunk = ByteBuffer.allocate(Math.min(size, SCAN_CHUNK_SIZE));
+            chunkEnd = readChunk(chunk, 0);
         }
-
-        params[0] = curidx;
-        params[1] = curptr + i;
-        params[5] = found;
-        params[6] = ignore;
-        return curidx < max;
+        for (int idx = 0; idx < nIndex; idx++) {
+            final int ptr = indexPtr.get(idx);
+            final int end = Math.min(ptr + PREFIX_BYTES, size);
+            if (end > chunkEnd) {
+                // 先頭部分がチャンクをまたぐので、見出し語の先頭から読み直す
+                chunkStart = ptr;
+                chunkEnd = chunkStart + readChunk(chunk, chunkStart);
+                if (end > chunkEnd) {
+                    return false;
+                }
+            }
+            long prefix = 0;
+            for (int i = ptr; i < end; i++) {
+                final long b = chunk.get(i - chunkStart) & 0xFF;
+                if (b == 0) {
+                    break;
+                }
+                prefix |= b << ((PREFIX_BYTES - 1 - i + ptr) * 8);
+            }
+            prefixes.put(idx, prefix);
+        }
+        return true;
     }
 
+    private int readChunk(final ByteBuffer chunk, final int offset) {
+        ByteBuffer dst = chunk.duplicate();
+        dst.clear();
+        dst.limit(Math.min(chunk.capacity(), size - offset));
+        try {
+            return Math.max(fileChannel.readFully(dst, start + (long) offset), 0);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
 }
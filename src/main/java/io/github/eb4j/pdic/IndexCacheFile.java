@@ -0,0 +1,334 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Index cache file (.idx) holding the index pointer table.
+ * <p>
+ * The file has a 64 bytes header followed by nIndex + 1 pointers, all in little endian.
+ * <pre>
+ *  0 magic "PDIX"
+ *  4 format version
+ *  8 nIndex
+ * 12 size of block number in index, 2 or 4
+ * 16 size of dictionary file
+ * 24 last modified time of dictionary file
+ * 32 CRC32 of dictionary header
+ * 36 CRC32 of cache header bytes 0 to 35
+ * 40 reserved
+ * </pre>
+ * A cache is used only when every field matches the dictionary, otherwise it is stale and rebuilt.
+ * The pointer table is mapped and read in place. A cache is written to a temporary file and renamed,
+ * so a reader never sees a partially written cache.
+ * <p>
+ * The Bloom filter of index words is stored next to the cache in a file of the same header with magic
+ * "PDBF", followed by the bit array in little endian.
+ * <pre>
+ * 40 number of words
+ * 44 bits per word
+ * 48 number of hash functions
+ * 52 CRC32 of bit array
+ * 56 reserved
+ * </pre>
+ * The normalized index is stored next to the cache in a file of the same header with magic "PDNI",
+ * followed by the first entry numbers of blocks and the table of hashes and entry numbers.
+ * <pre>
+ * 40 number of entries in table
+ * 44 hash of Java specification version, whose Unicode version defines the folding
+ * 48 CRC32 of tables
+ * 52 reserved
+ * </pre>
+ */
+final class IndexCacheFile {
+    static final int MAGIC = 0x58494450;  // "PDIX" in little endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int FILTER_MAGIC = 0x46424450;  // "PDBF" in little endian
+    private static final int CHECKSUM_OFFSET = 36;
+    private static final int FIELDS_OFFSET = 40;
+    private static final String FILTER_SUFFIX = ".bloom";
+    static final int NORMALIZED_MAGIC = 0x494e4450;  // "PDNI" in little endian
+    private static final String NORMALIZED_SUFFIX = ".norm";
+
+    private final int nIndex;
+    private final int blockBits;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final int headerHash;
+
+    /**
+     * Describe the index cache of a dictionary.
+     * @param source dictionary file.
+     * @param dictionaryHeader header bytes of the dictionary.
+     * @param nIndex number of index entries.
+     * @param blockBits size of block number.
+     */
+    IndexCacheFile(@NotNull final File source, @NotNull final ByteBuffer dictionaryHeader, final int nIndex,
+                   final int blockBits) {
+        this.nIndex = nIndex;
+        this.blockBits = blockBits;
+        sourceSize = source.length();
+        sourceModified = source.lastModified();
+        CRC32 crc = new CRC32();
+        crc.update(dictionaryHeader.duplicate());
+        headerHash = (int) crc.getValue();
+    }
+
+    /**
+     * Map pointer table of a valid cache file.
+     * @param cacheFile cache file.
+     * @return pointer table, or null when the file does not exist or is stale.
+     * @throws IOException when read failed.
+     */
+    @Nullable
+    IntBuffer read(@NotNull final File cacheFile) throws IOException {
+        if (!cacheFile.isFile() || cacheFile.length() != HEADER_SIZE + (nIndex + 1) * 4L) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer header = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            header.limit(HEADER_SIZE);
+            if (!header.equals(createHeader(MAGIC))) {
+                return null;
+            }
+            // the mapping stays valid after the channel is closed.
+            mapped.position(HEADER_SIZE);
+            return mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+    }
+
+    /**
+     * Write pointer table atomically.
+     * @param cacheFile cache file to write.
+     * @param indexPtr pointer table.
+     * @throws IOException when write failed.
+     */
+    void write(@NotNull final File cacheFile, @NotNull final int[] indexPtr) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + indexPtr.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(createHeader(MAGIC));
+        buffer.asIntBuffer().put(indexPtr);
+        buffer.clear();
+        writeAtomically(cacheFile, buffer);
+    }
+
+    /**
+     * Get file of Bloom filter next to the cache file.
+     * @param cacheFile cache file.
+     * @return filter file.
+     */
+    static File getFilterFile(@NotNull final File cacheFile) {
+        return new File(cacheFile.getPath() + FILTER_SUFFIX);
+    }
+
+    /**
+     * Read a valid Bloom filter file.
+     * @param filterFile filter file.
+     * @param bitsPerWord bits per word of the filter wanted.
+     * @return filter, or null when the file does not exist, is stale or was made with other bits per word.
+     * @throws IOException when read failed.
+     */
+    @Nullable
+    BloomFilter readFilter(@NotNull final File filterFile, final int bitsPerWord) throws IOException {
+        final long length = filterFile.length();
+        if (!filterFile.isFile() || length < HEADER_SIZE || (length - HEADER_SIZE) % 8 != 0
+                || length - HEADER_SIZE > Integer.MAX_VALUE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(filterFile.toPath(), StandardOpenOption.READ)) {
+            if (Utils.readFully(channel, buffer.duplicate(), 0) != length) {
+                return null;
+            }
+        }
+        ByteBuffer header = buffer.duplicate();
+        header.limit(FIELDS_OFFSET);
+        ByteBuffer expected = createHeader(FILTER_MAGIC);
+        expected.limit(FIELDS_OFFSET);
+        if (!header.equals(expected) || buffer.getInt(FIELDS_OFFSET + 4) != bitsPerWord) {
+            return null;
+        }
+        final int wordCount = buffer.getInt(FIELDS_OFFSET);
+        final int hashCount = buffer.getInt(FIELDS_OFFSET + 8);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, (int) length - HEADER_SIZE);
+        if (buffer.getInt(FIELDS_OFFSET + 12) != (int) crc.getValue()) {
+            return null;
+        }
+        buffer.position(HEADER_SIZE);
+        final long[] bits = new long[(int) (length - HEADER_SIZE) / 8];
+        buffer.asLongBuffer().get(bits);
+        return new BloomFilter(bits, wordCount, bitsPerWord, hashCount);
+    }
+
+    /**
+     * Write Bloom filter file atomically.
+     * @param filterFile filter file to write.
+     * @param filter filter.
+     * @throws IOException when write failed.
+     */
+    void writeFilter(@NotNull final File filterFile, @NotNull final BloomFilter filter) throws IOException {
+        final long[] bits = filter.getBits();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bits.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(createHeader(FILTER_MAGIC));
+        buffer.asLongBuffer().put(bits);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, bits.length * 8);
+        buffer.putInt(FIELDS_OFFSET, filter.getWordCount());
+        buffer.putInt(FIELDS_OFFSET + 4, filter.getBitsPerWord());
+        buffer.putInt(FIELDS_OFFSET + 8, filter.getHashCount());
+        buffer.putInt(FIELDS_OFFSET + 12, (int) crc.getValue());
+        buffer.clear();
+        writeAtomically(filterFile, buffer);
+    }
+
+    /**
+     * Get file of normalized index next to the cache file.
+     * @param cacheFile cache file.
+     * @return normalized index file.
+     */
+    static File getNormalizedFile(@NotNull final File cacheFile) {
+        return new File(cacheFile.getPath() + NORMALIZED_SUFFIX);
+    }
+
+    /**
+     * Read a valid normalized index file.
+     * @param normalizedFile normalized index file.
+     * @return normalized index, or null when the file does not exist, is stale or was made by another Java.
+     * @throws IOException when read failed.
+     */
+    @Nullable
+    NormalizedIndex readNormalized(@NotNull final File normalizedFile) throws IOException {
+        final long length = normalizedFile.length();
+        final long blockEntriesSize = (nIndex + 1) * 4L;
+        if (!normalizedFile.isFile() || length < HEADER_SIZE + blockEntriesSize
+                || (length - HEADER_SIZE - blockEntriesSize) % 8 != 0 || length > Integer.MAX_VALUE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(normalizedFile.toPath(), StandardOpenOption.READ)) {
+            if (Utils.readFully(channel, buffer.duplicate(), 0) != length) {
+                return null;
+            }
+        }
+        ByteBuffer header = buffer.duplicate();
+        header.limit(FIELDS_OFFSET);
+        ByteBuffer expected = createHeader(NORMALIZED_MAGIC);
+        expected.limit(FIELDS_OFFSET);
+        final int count = buffer.getInt(FIELDS_OFFSET);
+        if (!header.equals(expected) || buffer.getInt(FIELDS_OFFSET + 4) != foldingVersion()
+                || count != (length - HEADER_SIZE - blockEntriesSize) / 8) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, (int) length - HEADER_SIZE);
+        if (buffer.getInt(FIELDS_OFFSET + 8) != (int) crc.getValue()) {
+            return null;
+        }
+        buffer.position(HEADER_SIZE);
+        final int[] blockEntries = new int[nIndex + 1];
+        buffer.asIntBuffer().get(blockEntries);
+        buffer.position(HEADER_SIZE + (int) blockEntriesSize);
+        final long[] table = new long[count];
+        buffer.asLongBuffer().get(table);
+        return new NormalizedIndex(table, blockEntries);
+    }
+
+    /**
+     * Write normalized index file atomically.
+     * @param normalizedFile normalized index file to write.
+     * @param index normalized index.
+     * @throws IOException when write failed.
+     */
+    void writeNormalized(@NotNull final File normalizedFile, @NotNull final NormalizedIndex index)
+            throws IOException {
+        final int[] blockEntries = index.getBlockEntries();
+        final long[] table = index.getTable();
+        final int dataSize = blockEntries.length * 4 + table.length * 8;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(createHeader(NORMALIZED_MAGIC));
+        buffer.asIntBuffer().put(blockEntries);
+        buffer.position(HEADER_SIZE + blockEntries.length * 4);
+        buffer.asLongBuffer().put(table);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, dataSize);
+        buffer.putInt(FIELDS_OFFSET, table.length);
+        buffer.putInt(FIELDS_OFFSET + 4, foldingVersion());
+        buffer.putInt(FIELDS_OFFSET + 8, (int) crc.getValue());
+        buffer.clear();
+        writeAtomically(normalizedFile, buffer);
+    }
+
+    private static int foldingVersion() {
+        return System.getProperty("java.specification.version").hashCode();
+    }
+
+    private static void writeAtomically(final File file, final ByteBuffer buffer) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private ByteBuffer createHeader(final int magic) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(magic);
+        header.putInt(VERSION);
+        header.putInt(nIndex);
+        header.putInt(blockBits);
+        header.putLong(sourceSize);
+        header.putLong(sourceModified);
+        header.putInt(headerHash);
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, CHECKSUM_OFFSET);
+        header.putInt((int) crc.getValue());
+        header.clear();
+        return header;
+    }
+}
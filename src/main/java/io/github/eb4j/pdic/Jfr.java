@@ -0,0 +1,85 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.pdic;
+
+import java.io.File;
+
+/**
+ * Emitter of JDK Flight Recorder events.
+ * <p>
+ * Events are defined in {@link JfrEvents}, which is loaded only when the jdk.jfr module is available, so the
+ * library still runs on a Java 8 runtime without Flight Recorder. Methods return or take events as Object,
+ * which is null when Flight Recorder is unavailable or the event is not enabled in the recording; an event
+ * object is created only while it is recorded.
+ */
+final class Jfr {
+    private static final boolean AVAILABLE = isAvailable();
+
+    private Jfr() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, Jfr.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static Object beginLoad() {
+        if (AVAILABLE) {
+            return JfrEvents.beginLoad();
+        }
+        return null;
+    }
+
+    static void endLoad(final Object event, final File file, final DictionaryData data, final long headerNanos,
+                        final long indexNanos) {
+        if (event != null) {
+            JfrEvents.endLoad(event, file, data, headerNanos, indexNanos);
+        }
+    }
+
+    static Object beginLookup() {
+        if (AVAILABLE) {
+            return JfrEvents.beginLookup();
+        }
+        return null;
+    }
+
+    static void endLookup(final Object event, final PdicLookupMetrics.Type type, final LookupCounters counters,
+                          final int results) {
+        if (event != null) {
+            JfrEvents.endLookup(event, type, counters, results);
+        }
+    }
+
+    static Object beginBlockRead() {
+        if (AVAILABLE) {
+            return JfrEvents.beginBlockRead();
+        }
+        return null;
+    }
+
+    static void endBlockRead(final Object event, final int blockNumber, final int bytes) {
+        if (event != null) {
+            JfrEvents.endBlockRead(event, blockNumber, bytes);
+        }
+    }
+}
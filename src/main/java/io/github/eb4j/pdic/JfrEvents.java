@@ -0,0 +1,211 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.pdic;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.io.File;
+
+/**
+ * JDK Flight Recorder events of dictionary load, lookup and block read.
+ * <p>
+ * Used only through {@link Jfr}. Whether an event is recorded is checked with its {@link EventType} before
+ * the event object is created.
+ */
+final class JfrEvents {
+    private static final EventType LOAD = EventType.getEventType(LoadEvent.class);
+    private static final EventType LOOKUP = EventType.getEventType(LookupEvent.class);
+    private static final EventType BLOCK_READ = EventType.getEventType(BlockReadEvent.class);
+    private static final int SECTOR_SIZE = 0x200;
+
+    private JfrEvents() {
+    }
+
+    static Object beginLoad() {
+        if (!LOAD.isEnabled()) {
+            return null;
+        }
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endLoad(final Object object, final File file, final DictionaryData data, final long headerNanos,
+                        final long indexNanos) {
+        LoadEvent event = (LoadEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.fileSize = file.length();
+            event.indexCount = data.getIndexCount();
+            event.indexCacheUsed = data.isIndexCacheUsed();
+            event.memoryMapped = data.isMemoryMapped();
+            event.headerParseTime = headerNanos;
+            event.indexTime = indexNanos;
+            event.cacheWriteTime = data.getCacheWriteNanos();
+            event.commit();
+        }
+    }
+
+    static Object beginLookup() {
+        if (!LOOKUP.isEnabled()) {
+            return null;
+        }
+        LookupEvent event = new LookupEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endLookup(final Object object, final PdicLookupMetrics.Type type, final LookupCounters counters,
+                          final int results) {
+        LookupEvent event = (LookupEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.lookupType = type.name();
+            event.keyLength = counters.keyBytes;
+            event.indexProbes = counters.indexProbes;
+            event.blocksLoaded = counters.blocksLoaded;
+            event.blocksRead = counters.blocksRead;
+            event.bytesRead = counters.bytesRead;
+            event.results = results;
+            event.commit();
+        }
+    }
+
+    static Object beginBlockRead() {
+        if (!BLOCK_READ.isEnabled()) {
+            return null;
+        }
+        BlockReadEvent event = new BlockReadEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endBlockRead(final Object object, final int blockNumber, final int bytes) {
+        BlockReadEvent event = (BlockReadEvent) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.blockNumber = blockNumber;
+            event.sectors = (bytes + SECTOR_SIZE - 1) / SECTOR_SIZE;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    /**
+     * Dictionary load event.
+     */
+    @Name("io.github.eb4j.pdic.Load")
+    @Label("PDIC Dictionary Load")
+    @Category("PDIC4j")
+    @Description("Header parse, index cache read or index build, and index cache write of a dictionary")
+    @SuppressWarnings("visibilitymodifier")
+    static final class LoadEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("File Size")
+        @DataAmount
+        long fileSize;
+
+        @Label("Index Entries")
+        int indexCount;
+
+        @Label("Index Cache Used")
+        @Description("Index pointers were read from a valid index cache file instead of being built")
+        boolean indexCacheUsed;
+
+        @Label("Memory Mapped")
+        boolean memoryMapped;
+
+        @Label("Header Parse Time")
+        @Timespan
+        long headerParseTime;
+
+        @Label("Index Time")
+        @Description("Time of index cache read or index build, including cache write")
+        @Timespan
+        long indexTime;
+
+        @Label("Cache Write Time")
+        @Timespan
+        long cacheWriteTime;
+    }
+
+    /**
+     * Lookup event.
+     */
+    @Name("io.github.eb4j.pdic.Lookup")
+    @Label("PDIC Lookup")
+    @Category("PDIC4j")
+    @Description("Exact, predictive, existence or batch lookup in a dictionary")
+    @SuppressWarnings("visibilitymodifier")
+    static final class LookupEvent extends Event {
+        @Label("Lookup Type")
+        String lookupType;
+
+        @Label("Key Length")
+        @Description("Encoded bytes of search word, summed over all words of a batch lookup")
+        @DataAmount
+        long keyLength;
+
+        @Label("Index Probes")
+        long indexProbes;
+
+        @Label("Blocks Touched")
+        long blocksLoaded;
+
+        @Label("Blocks Read")
+        @Description("Data blocks read from the file, which were not cached nor mapped")
+        long blocksRead;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytesRead;
+
+        @Label("Results")
+        int results;
+    }
+
+    /**
+     * Data block read event.
+     */
+    @Name("io.github.eb4j.pdic.BlockRead")
+    @Label("PDIC Block Read")
+    @Category("PDIC4j")
+    @Description("Read of a data block from the dictionary file")
+    @SuppressWarnings("visibilitymodifier")
+    static final class BlockReadEvent extends Event {
+        @Label("Block Number")
+        int blockNumber;
+
+        @Label("Sectors")
+        int sectors;
+
+        @Label("Bytes")
+        @DataAmount
+        int bytes;
+    }
+}
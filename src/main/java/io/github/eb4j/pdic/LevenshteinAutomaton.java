@@ -0,0 +1,227 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic;
+
+import java.util.Arrays;
+
+/**
+ * Levenshtein automaton of a word run over index words in index order.
+ * <p>
+ * The state after a prefix of an index word is the row of edit distances between the prefix and every
+ * prefix of the word, capped at the maximum edits plus one. Rows of the previous index word are kept, so
+ * only the part after the common prefix is stepped, which is short because neighbouring entries share
+ * prefixes. When no word within the maximum edits can start with a prefix, the automaton is dead there,
+ * and {@link #nextTarget()} gives the least string greater than the index word which may still be
+ * accepted; entries before it can be skipped. Index words are compared by code point, which is the
+ * byte order of BOCU-1.
+ * <p>
+ * An instance is used by a single lookup.
+ */
+final class LevenshteinAutomaton {
+    private static final int MAX_CODE_POINT = 0x10FFFF;
+
+    private final int[] word;
+    private final int width;
+    private final int cap;
+    private int maxEdits;
+    private int[] rows;
+    private int[] mins;
+    private int[] term = new int[64];
+    private int termLen;
+    private int computed;
+    private int deadDepth = -1;
+    private char[] chars = new char[64];
+
+    /**
+     * Automaton of a word.
+     * @param word word.
+     * @param maxEdits maximum number of inserted, deleted and substituted characters.
+     */
+    LevenshteinAutomaton(final String word, final int maxEdits) {
+        this.word = word.codePoints().toArray();
+        this.maxEdits = maxEdits;
+        width = this.word.length + 1;
+        cap = maxEdits + 1;
+        rows = new int[width * (term.length + 1)];
+        mins = new int[term.length + 1];
+        for (int j = 0; j < width; j++) {
+            rows[j] = Math.min(j, cap);
+        }
+    }
+
+    /**
+     * Current maximum number of edits.
+     * @return maximum edits, or -1 when nothing can be accepted any more.
+     */
+    int getMaxEdits() {
+        return maxEdits;
+    }
+
+    /**
+     * Lower maximum number of edits during a run.
+     * @param edits new maximum, not greater than current one.
+     */
+    void lowerMaxEdits(final int edits) {
+        maxEdits = Math.min(maxEdits, edits);
+    }
+
+    /**
+     * Run automaton over index part of an encoded index word.
+     * @param indexWord encoded index word.
+     * @param len length of index word.
+     * @return edit distance when accepted, otherwise -1.
+     */
+    int match(final byte[] indexWord, final int len) {
+        final int partLen = NormalizedIndex.indexPartLength(indexWord, len);
+        if (chars.length < Bocu1.maxDecodedLength(partLen)) {
+            chars = new char[Bocu1.maxDecodedLength(partLen)];
+        }
+        final int n = Bocu1.decode(indexWord, 0, partLen, chars, 0);
+        // 前の見出し語と共通の部分の行はそのまま使う
+        int depth = 0;
+        boolean same = true;
+        for (int i = 0; i < n; depth++) {
+            final int cp = Character.codePointAt(chars, i, n);
+            i += Character.charCount(cp);
+            if (depth == term.length) {
+                grow();
+            }
+            if (same && (depth >= termLen || depth >= computed || term[depth] != cp)) {
+                computed = depth;
+                same = false;
+            }
+            term[depth] = cp;
+        }
+        if (same) {
+            computed = Math.min(computed, depth);
+        }
+        termLen = depth;
+        deadDepth = -1;
+        for (int d = 0; d <= termLen; d++) {
+            if (d > computed) {
+                step(d - 1);
+                computed = d;
+            }
+            if (mins[d] > maxEdits) {
+                deadDepth = d;
+                return -1;
+            }
+        }
+        final int distance = rows[termLen * width + width - 1];
+        if (distance > maxEdits) {
+            return -1;
+        }
+        return distance;
+    }
+
+    /**
+     * Is the automaton dead at a prefix of the last index word?
+     * @return true when no following index word with the same prefix is accepted.
+     */
+    boolean isDead() {
+        return deadDepth >= 0;
+    }
+
+    /**
+     * Least string greater than the last index word which may be accepted.
+     * <p>
+     * Valid only when {@link #isDead()}. A prefix of the index word is kept and the character after it
+     * is replaced by the least greater one keeping the automaton alive; when there is none, a shorter
+     * prefix is tried.
+     * @return target string, or null when no following index word is accepted.
+     */
+    String nextTarget() {
+        for (int i = deadDepth - 1; i >= 0; i--) {
+            final int c = nextChar(i, term[i]);
+            if (c >= 0) {
+                final int[] target = Arrays.copyOf(term, i + 1);
+                target[i] = c;
+                return new String(target, 0, i + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Least character greater than given one which keeps the automaton alive after a prefix.
+     * @param depth length of prefix.
+     * @param after character.
+     * @return character, or -1 when none.
+     */
+    private int nextChar(final int depth, final int after) {
+        int c;
+        if (mins[depth] < maxEdits) {
+            // どの文字も置換で受け付けられる
+            c = after + 1;
+        } else {
+            // 編集の余地がないので単語の文字と一致するしかない
+            c = -1;
+            final int base = depth * width;
+            for (int j = 1; j < width; j++) {
+                final int w = word[j - 1];
+                if (rows[base + j - 1] <= maxEdits && w > after && (c < 0 || w < c)) {
+                    c = w;
+                }
+            }
+            if (c < 0) {
+                return -1;
+            }
+        }
+        if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+            // 孤立したサロゲートは符号化できないので飛ばす
+            c = Character.MAX_SURROGATE + 1;
+        }
+        if (c > MAX_CODE_POINT) {
+            return -1;
+        }
+        return c;
+    }
+
+    /**
+     * Compute row after a character of the term from the row before it.
+     * @param depth depth of the row before.
+     */
+    private void step(final int depth) {
+        final int c = term[depth];
+        final int prev = depth * width;
+        final int cur = prev + width;
+        int v = Math.min(rows[prev] + 1, cap);
+        rows[cur] = v;
+        int min = v;
+        for (int j = 1; j < width; j++) {
+            v = rows[prev + j - 1];
+            if (word[j - 1] != c) {
+                v++;
+            }
+            v = Math.min(v, Math.min(rows[prev + j], rows[cur + j - 1]) + 1);
+            v = Math.min(v, cap);
+            rows[cur + j] = v;
+            min = Math.min(min, v);
+        }
+        mins[depth + 1] = min;
+    }
+
+    private void grow() {
+        final int size = term.length * 2;
+        term = Arrays.copyOf(term, size);
+        rows = Arrays.copyOf(rows, width * (size + 1));
+        mins = Arrays.copyOf(mins, size + 1);
+    }
+}
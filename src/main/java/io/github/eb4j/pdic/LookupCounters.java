@@ -0,0 +1,74 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.pdic;
+
+/**
+ * Counters of a lookup in progress.
+ * <p>
+ * Held by {@link AnalyzeBlock} of a cursor, which is used by a single thread, so counters are plain fields
+ * updated without synchronization. They are always counted, and copied into {@link PdicLookupMetrics} only
+ * when a {@link PdicLookupListener} is set.
+ */
+@SuppressWarnings("visibilitymodifier")
+final class LookupCounters {
+    long indexProbes;
+    long indexCompares;
+    long segmentHits;
+    long segmentMisses;
+    long blocksLoaded;
+    long blocksRead;
+    long bytesRead;
+    long blockReadNanos;
+    long entriesDecoded;
+    long entriesDiscarded;
+    long keyBytes;
+    boolean timed;
+    Object jfrEvent;
+
+    /**
+     * Clear counters at start of a lookup.
+     * @param timed true to measure time of block reads.
+     */
+    void reset(final boolean timed) {
+        indexProbes = 0;
+        indexCompares = 0;
+        segmentHits = 0;
+        segmentMisses = 0;
+        blocksLoaded = 0;
+        blocksRead = 0;
+        bytesRead = 0;
+        blockReadNanos = 0;
+        entriesDecoded = 0;
+        entriesDiscarded = 0;
+        keyBytes = 0;
+        this.timed = timed;
+        jfrEvent = null;
+    }
+
+    /**
+     * Create snapshot of counters.
+     * @param type type of lookup.
+     * @param results number of entries returned.
+     * @param elapsedNanos time of lookup.
+     * @return metrics.
+     */
+    PdicLookupMetrics toMetrics(final PdicLookupMetrics.Type type, final int results, final long elapsedNanos) {
+        return new PdicLookupMetrics(type, indexProbes, indexCompares, segmentHits, segmentMisses, blocksLoaded,
+                blocksRead, bytesRead, entriesDecoded, entriesDiscarded, results, elapsedNanos, blockReadNanos);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory of daemon threads for lookups.
+ */
+final class LookupThreadFactory implements ThreadFactory {
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Create a bounded pool of daemon lookup threads.
+     * <p>
+     * Idle threads exit after a minute. Tasks submitted while all threads are busy wait in a queue of
+     * bounded capacity, and tasks beyond it are rejected with RejectedExecutionException.
+     * @param threads maximum number of threads.
+     * @return executor service.
+     */
+    static ExecutorService newBoundedThreadPool(final int threads) {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY), new LookupThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @Override
+    public Thread newThread(@NotNull final Runnable runnable) {
+        Thread thread = new Thread(runnable, "pdic4j-lookup-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic;
+
+import java.nio.CharBuffer;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Secondary index of index words folded by NFKC and lower case.
+ * <p>
+ * Each entry of the dictionary is numbered in index order, and the table holds the hash of its folded
+ * index part in the upper 32 bits and the entry number in the lower 32 bits, sorted, so all entries of a
+ * folded word are found by a binary search and are in index order. Another table holds the number of the
+ * first entry of each index block, from which the block of an entry and its position in the block are
+ * found. Entries are 8 bytes each. A hash may collide, so the index word of an entry found is folded and
+ * compared again. The index is immutable after it is built and shared between threads.
+ */
+final class NormalizedIndex {
+    private static final byte TAB = 0x09;
+
+    private final long[] table;
+    private final int[] blockEntries;
+
+    /**
+     * Index of given tables.
+     * @param table sorted hashes and entry numbers.
+     * @param blockEntries number of the first entry of each index block, and the number of entries.
+     */
+    NormalizedIndex(final long[] table, final int[] blockEntries) {
+        this.table = table;
+        this.blockEntries = blockEntries;
+    }
+
+    /**
+     * Fold word for the index.
+     * <p>
+     * NFKC unifies full-width and half-width variants and compatibility characters, and lower case
+     * unifies capitalization.
+     * @param word word.
+     * @return folded word.
+     */
+    static String fold(final CharSequence word) {
+        return Normalizer.normalize(word, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Fold index part of an encoded index word.
+     * @param word encoded index word.
+     * @param len length of index word.
+     * @return folded index part.
+     */
+    static String foldIndexWord(final byte[] word, final int len) {
+        return fold(Bocu1.decode(word, 0, indexPartLength(word, len)));
+    }
+
+    /**
+     * Hash of an encoded folded word.
+     * @param key encoded folded word.
+     * @param len length of key.
+     * @return hash.
+     */
+    static int hash(final byte[] key, final int len) {
+        return (int) (BloomFilter.hash(key, len) >>> 32);
+    }
+
+    /**
+     * Length of index part of an encoded index word, which ends at TAB.
+     * @param word encoded index word.
+     * @param len length of index word.
+     * @return length of index part.
+     */
+    static int indexPartLength(final byte[] word, final int len) {
+        for (int i = 0; i < len; i++) {
+            if (word[i] == TAB) {
+                return i;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Find first position of the hash in the table.
+     * @param hash hash of folded word.
+     * @return position, or -1 when not found.
+     */
+    int find(final int hash) {
+        final long key = (long) hash << 32;
+        int pos = Arrays.binarySearch(table, key);
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        if (pos < table.length && getHash(pos) == hash) {
+            return pos;
+        }
+        return -1;
+    }
+
+    /**
+     * Number of entries in the table.
+     * @return number of entries.
+     */
+    int size() {
+        return table.length;
+    }
+
+    int getHash(final int pos) {
+        return (int) (table[pos] >> 32);
+    }
+
+    int getEntry(final int pos) {
+        return (int) table[pos];
+    }
+
+    /**
+     * Index block holding an entry.
+     * @param entry entry number.
+     * @return index number of block.
+     */
+    int getBlockIndex(final int entry) {
+        int pos = Arrays.binarySearch(blockEntries, entry);
+        if (pos < 0) {
+            return -pos - 2;
+        }
+        // 空のブロックを飛ばす
+        while (pos + 1 < blockEntries.length && blockEntries[pos + 1] == entry) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Number of the first entry of index block.
+     * @param index index number of block.
+     * @return entry number.
+     */
+    int getFirstEntry(final int index) {
+        return blockEntries[index];
+    }
+
+    long[] getTable() {
+        return table;
+    }
+
+    int[] getBlockEntries() {
+        return blockEntries;
+    }
+
+    /**
+     * Heap used by the index.
+     * @return size in bytes.
+     */
+    long getSize() {
+        return table.length * 8L + blockEntries.length * 4L;
+    }
+
+    /**
+     * Builder adding entries of all blocks in index order.
+     * <p>
+     * An index part of ASCII only, which is the most, is folded in place without allocation.
+     */
+    static final class Builder {
+        private final int[] blockEntries;
+        private long[] table;
+        private int count;
+        private int blocks;
+        private char[] chars = new char[64];
+        private byte[] key = new byte[192];
+
+        /**
+         * Builder for a dictionary.
+         * @param nIndex number of index blocks.
+         */
+        Builder(final int nIndex) {
+            blockEntries = new int[nIndex + 1];
+            table = new long[Math.max(16, nIndex * 4)];
+        }
+
+        /**
+         * Start next index block; call for every block even when it is not readable.
+         */
+        void startBlock() {
+            blockEntries[blocks++] = count;
+        }
+
+        /**
+         * Add entry of current block.
+         * @param word encoded index word.
+         * @param len length of index word.
+         */
+        void add(final byte[] word, final int len) {
+            final int partLen = indexPartLength(word, len);
+            if (chars.length < Bocu1.maxDecodedLength(partLen)) {
+                chars = new char[Bocu1.maxDecodedLength(partLen)];
+            }
+            final int n = Bocu1.decode(word, 0, partLen, chars, 0);
+            CharSequence folded = CharBuffer.wrap(chars, 0, n);
+            if (!toLowerAscii(chars, n)) {
+                folded = fold(folded);
+            }
+            if (key.length < Bocu1.maxEncodedLength(folded.length())) {
+                key = new byte[Bocu1.maxEncodedLength(folded.length())];
+            }
+            final int keyLen = Bocu1.encode(folded, key);
+            if (count == table.length) {
+                table = Arrays.copyOf(table, count * 2);
+            }
+            table[count] = ((long) hash(key, keyLen) << 32) | (count & 0xFFFFFFFFL);
+            count++;
+        }
+
+        private static boolean toLowerAscii(final char[] chars, final int len) {
+            for (int i = 0; i < len; i++) {
+                if (chars[i] >= 0x80) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < len; i++) {
+                if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                    chars[i] += 'a' - 'A';
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Build index.
+         * @return normalized index.
+         */
+        NormalizedIndex build() {
+            while (blocks < blockEntries.length) {
+                blockEntries[blocks++] = count;
+            }
+            final long[] sorted = Arrays.copyOf(table, count);
+            Arrays.sort(sorted);
+            return new NormalizedIndex(sorted, blockEntries);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+/**
+ * Snapshot of cache statistics.
+ * This is POJO data class; counters are cumulative since the dictionary is loaded.
+ * @author Hiroshi Miura
+ */
+public final class PdicCacheStatistics {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long size;
+    private final long weightedSize;
+    private final long maxWeight;
+
+    PdicCacheStatistics(final long hitCount, final long missCount, final long evictionCount, final long size,
+                        final long weightedSize, final long maxWeight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.weightedSize = weightedSize;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Get count of cache hits.
+     * @return hit count.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get count of cache misses.
+     * @return miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Get count of evicted entries.
+     * @return eviction count.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Get ratio of hits to requests.
+     * @return hit rate, or 1.0 when there was no request.
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        if (requests == 0) {
+            return 1.0;
+        }
+        return (double) hitCount / requests;
+    }
+
+    /**
+     * Get number of cached entries.
+     * @return entry count.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Get bytes held by cached entries.
+     * @return size in bytes.
+     */
+    public long getWeightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Get budget of the cache.
+     * @return maximum size in bytes, 0 when cache is disabled.
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public String toString() {
+        return "PdicCacheStatistics{hitCount=" + hitCount + ", missCount=" + missCount
+                + ", evictionCount=" + evictionCount + ", size=" + size + ", weightedSize=" + weightedSize
+                + ", maxWeight=" + maxWeight + "}";
+    }
+}
@@ -21,21 +21,35 @@ package io.github.eb4j.pdic;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
+ * PDIC/Unicode dictionary.
+ * <p>
+ * A loaded dictionary is safe to share between threads; each lookup carries its own search state.
+ * Close the dictionary to release the file handle when it is no longer used.
  * @author wak (Apache-2.0)
  * @author Hiroshi Miura
  */
-public class PdicDictionary {
+public class PdicDictionary implements Closeable {
     private final DictionaryData dictionaryData;
+    private final CompletableFuture<Void> warmUp;
     private static final int HEADER_SIZE = 256;
 
     /**
@@ -44,22 +58,99 @@ public class PdicDictionary {
     public static final int DEFAULT_MAX_RESULTS = 10;
 
     public PdicDictionary(final DictionaryData dictionaryData) {
+        this(dictionaryData, PdicWarmUp.NONE);
+    }
+
+    private PdicDictionary(final DictionaryData dictionaryData, final PdicWarmUp level) {
         this.dictionaryData = dictionaryData;
+        if (level == PdicWarmUp.NONE) {
+            warmUp = CompletableFuture.completedFuture(null);
+        } else {
+            warmUp = runWarmUp(dictionaryData, level, DefaultExecutorHolder.EXECUTOR);
+        }
+    }
+
+    DictionaryData getDictionaryData() {
+        return dictionaryData;
     }
 
     /**
      * Look up word from index.
+     * <p>
+     * The search word is encoded once into scratch space reused by the calling thread, and only entries
+     * which match exactly are decoded; a lookup which finds nothing returns an empty list without allocation
+     * when the data block is cached or memory-mapped.
      * @param word keyword to search.
      * @return list of result as PdicElement.
      * @throws IOException when error occurred.
      */
     public List<PdicElement> getEntries(@NotNull final String word) throws IOException {
-        if (dictionaryData.searchWord(word) && dictionaryData.hasExactMatch()) {
-            return dictionaryData.getResult().stream()
-                    .filter(en -> en.getIndexWord().equals(word))
-                    .collect(Collectors.toList());
+        return dictionaryData.getEntries(word);
+    }
+
+    /**
+     * Look up word ignoring case and width.
+     * <p>
+     * The word and index words are folded by NFKC and lower case, so capitalized, full-width and
+     * half-width variants of the word are found together by one probe of the normalized index. The index
+     * part of an index word, before TAB, is compared. The normalized index is built by a scan of all data
+     * blocks at the first call unless {@link PdicLoadOptions.PdicLoadOptionsBuilder#setNormalizedIndex}
+     * loads it with the dictionary.
+     * @param word keyword to search.
+     * @return list of result as PdicElement in index order, up to {@link #getMaxSearchCount()}.
+     * @throws IOException when error occurred.
+     */
+    public List<PdicElement> getEntriesNormalized(@NotNull final String word) throws IOException {
+        return dictionaryData.getEntriesNormalized(word);
+    }
+
+    /**
+     * Look up words within an edit distance, e.g. for spelling suggestions.
+     * <p>
+     * The index part of an index word, before TAB, is compared with the word by Levenshtein distance of
+     * code points, counting inserted, deleted and substituted characters. The sorted index is scanned by
+     * an automaton of the word, which skips ranges of index words that cannot be within the distance, so
+     * this is much faster than looking up every variant of the word.
+     * @param word keyword to search.
+     * @param maxEdits maximum edit distance, from 0 to 2.
+     * @param limit maximum number of entries.
+     * @return list of result as PdicElement, nearest first and in index order for the same distance.
+     * @throws IOException when error occurred.
+     * @throws IllegalArgumentException when maxEdits is out of range.
+     */
+    public List<PdicElement> getEntriesFuzzy(@NotNull final String word, final int maxEdits, final int limit)
+            throws IOException {
+        if (maxEdits < 0 || maxEdits > 2) {
+            throw new IllegalArgumentException("maxEdits must be from 0 to 2: " + maxEdits);
         }
-        return Collections.emptyList();
+        return dictionaryData.getEntriesFuzzy(word, maxEdits, limit);
+    }
+
+    /**
+     * Check whether the word exists in index.
+     * <p>
+     * Cheaper than {@link #getEntries(String)} because no entry is decoded.
+     * @param word keyword to search.
+     * @return true when the word has an entry, otherwise false.
+     * @throws IOException when error occurred.
+     */
+    public boolean hasEntry(@NotNull final String word) throws IOException {
+        return dictionaryData.hasEntry(word);
+    }
+
+    /**
+     * Look up several words from index at once.
+     * <p>
+     * Words are sorted in index order and looked up in one forward pass over the index and data blocks,
+     * so a data block shared by several words is read once. This is faster than calling
+     * {@link #getEntries(String)} for each word of a document.
+     * @param words keywords to search.
+     * @return map of each distinct keyword to its entries; an empty list when the word is not found.
+     * @throws IOException when error occurred.
+     */
+    public Map<String, List<PdicElement>> getEntriesBatch(@NotNull final Collection<String> words)
+            throws IOException {
+        return dictionaryData.getEntriesBatch(words);
     }
 
     /**
@@ -69,10 +160,264 @@ public class PdicDictionary {
      * @throws IOException when error occurred.
      */
     public List<PdicElement> getEntriesPredictive(@NotNull final String word) throws IOException {
-        if (dictionaryData.searchWord(word)) {
-            return dictionaryData.getResult();
+        return dictionaryData.getEntriesPredictive(word, null);
+    }
+
+    /**
+     * Look up word from index by exact match asynchronously on the default executor.
+     * <p>
+     * The default executor is a bounded pool of daemon threads; when its queue is full, the future
+     * completes exceptionally with RejectedExecutionException.
+     * @param word keyword to search.
+     * @return future of list of result as PdicElement.
+     * @see #getEntriesAsync(String, Executor)
+     */
+    public CompletableFuture<List<PdicElement>> getEntriesAsync(@NotNull final String word) {
+        return getEntriesAsync(word, DefaultExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Look up word from index by exact match asynchronously.
+     * <p>
+     * The lookup runs on the executor and the future completes with the result of
+     * {@link #getEntries(String)}, or exceptionally with the IOException. Cancelling the future before the
+     * lookup starts skips the lookup. A running lookup is not interrupted, because an interrupted read is
+     * retried on the reopened file and does not stop it; its result is dropped. Lookups block on file I/O
+     * unless the blocks are cached or memory-mapped, so an executor of virtual threads keeps many lookups
+     * in flight without holding a platform thread each.
+     * @param word keyword to search.
+     * @param executor executor running the lookup.
+     * @return future of list of result as PdicElement.
+     */
+    public CompletableFuture<List<PdicElement>> getEntriesAsync(@NotNull final String word,
+                                                                @NotNull final Executor executor) {
+        return supplyAsync(future -> getEntries(word), executor);
+    }
+
+    /**
+     * Look up word from index by prefix search asynchronously on the default executor.
+     * <p>
+     * The default executor is a bounded pool of daemon threads; when its queue is full, the future
+     * completes exceptionally with RejectedExecutionException.
+     * @param word keyword to search.
+     * @return future of list of result as PdicElement.
+     * @see #getEntriesPredictiveAsync(String, Executor)
+     */
+    public CompletableFuture<List<PdicElement>> getEntriesPredictiveAsync(@NotNull final String word) {
+        return getEntriesPredictiveAsync(word, DefaultExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Look up word from index by prefix search asynchronously.
+     * <p>
+     * Same as {@link #getEntriesAsync(String, Executor)} for {@link #getEntriesPredictive(String)}, and
+     * cancelling the future also stops a running lookup before the next entry is read.
+     * @param word keyword to search.
+     * @param executor executor running the lookup.
+     * @return future of list of result as PdicElement.
+     */
+    public CompletableFuture<List<PdicElement>> getEntriesPredictiveAsync(@NotNull final String word,
+                                                                          @NotNull final Executor executor) {
+        return supplyAsync(future -> dictionaryData.getEntriesPredictive(word, future), executor);
+    }
+
+    private static CompletableFuture<List<PdicElement>> supplyAsync(final AsyncLookup lookup,
+                                                                    final Executor executor) {
+        final CompletableFuture<List<PdicElement>> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                // キャンセル済なら検索しない
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(lookup.apply(future));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Get statistics of the negative lookup filter enabled by
+     * {@link PdicLoadOptions.PdicLoadOptionsBuilder#setBloomFilterBitsPerWord(int)}.
+     * <p>
+     * The statistics report bytes per word and the expected and the observed false positive rate.
+     * @return statistics, or null when the filter is disabled.
+     */
+    public @Nullable PdicFilterStatistics getFilterStatistics() {
+        return dictionaryData.getFilterStatistics();
+    }
+
+    /**
+     * Get future of warm-up started at load by {@link PdicLoadOptions.PdicLoadOptionsBuilder#setWarmUp}.
+     * <p>
+     * A readiness check can wait on the future. It is already completed when no warm-up was requested.
+     * @return future completed when warm-up is done.
+     */
+    public CompletableFuture<Void> getWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Warm up the dictionary on the default executor.
+     * @param level warm-up level.
+     * @return future completed when warm-up is done.
+     * @see #warmUp(PdicWarmUp, Executor)
+     */
+    public CompletableFuture<Void> warmUp(@NotNull final PdicWarmUp level) {
+        return warmUp(level, DefaultExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Warm up the dictionary in background.
+     * <p>
+     * Index segments and data blocks are read ahead so that lookups do not wait for disk, depending on the
+     * level. Lookups may run during warm-up. The future completes when warm-up is done, or exceptionally
+     * with the IOException, e.g. when the dictionary is closed meanwhile. Cancelling the future stops
+     * warm-up at the next segment or block; it is not interrupted, because an interrupted read is retried
+     * on the reopened file.
+     * @param level warm-up level.
+     * @param executor executor running warm-up.
+     * @return future completed when warm-up is done.
+     */
+    public CompletableFuture<Void> warmUp(@NotNull final PdicWarmUp level, @NotNull final Executor executor) {
+        return runWarmUp(dictionaryData, level, executor);
+    }
+
+    private static CompletableFuture<Void> runWarmUp(final DictionaryData dictionaryData, final PdicWarmUp level,
+                                                     final Executor executor) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    dictionaryData.warmUp(level, future);
+                    future.complete(null);
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Lookup run by an executor.
+     */
+    @FunctionalInterface
+    private interface AsyncLookup {
+        List<PdicElement> apply(Future<?> future) throws IOException;
+    }
+
+    /**
+     * Executor of asynchronous lookups without executor given, created on first use.
+     * <p>
+     * It has a thread for each processor, and at least two so that a warm-up does not hold back lookups.
+     */
+    private static final class DefaultExecutorHolder {
+        private static final Executor EXECUTOR = LookupThreadFactory.newBoundedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Look up word from index by prefix search, as a lazy stream.
+     * <p>
+     * Entries are read one by one in index order while the stream is consumed, across data blocks, and
+     * are not limited by {@link #setMaxSearchCount(int)}. Memory use stays constant however many entries
+     * match, and reading stops when the stream is no longer pulled, e.g. by {@link Stream#limit(long)}.
+     * An I/O error while reading is thrown as {@link java.io.UncheckedIOException}.
+     * @param word keyword to search; an empty string walks all entries.
+     * @return stream of result as PdicElement.
+     */
+    public Stream<PdicElement> streamEntriesPredictive(@NotNull final String word) {
+        return StreamSupport.stream(new PredictiveSpliterator(dictionaryData, word), false);
+    }
+
+    /**
+     * All entries of the dictionary as a parallel stream.
+     * <p>
+     * Data blocks are split into ranges parsed independently on the fork/join pool running the stream,
+     * so a full scan scales with the number of cores. Entries are ordered in index order; use
+     * {@link Stream#sequential()} for a single thread scan. Blocks are read bypassing the block cache.
+     * An I/O error while reading is thrown as {@link java.io.UncheckedIOException}.
+     * @return stream of all entries.
+     */
+    public Stream<PdicElement> entries() {
+        return StreamSupport.stream(new BlockSpliterator(dictionaryData, 0, dictionaryData.getIndexCount()), true);
+    }
+
+    /**
+     * Export all entries as tab separated values in index order.
+     * <p>
+     * A line has index word, head word, translation, example and pronunciation. A missing field is empty,
+     * and backslash, TAB, CR and LF in a field are escaped as {@code \\}, {@code \t}, {@code \r} and
+     * {@code \n}. Entries are decoded in parallel by {@link #entries()} and written by the calling thread.
+     * @param writer destination; not closed.
+     * @throws IOException when read or write failed.
+     */
+    public void export(@NotNull final Writer writer) throws IOException {
+        try {
+            entries().map(PdicDictionary::toTsv).forEachOrdered(line -> {
+                try {
+                    writer.write(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static String toTsv(final PdicElement element) {
+        StringBuilder sb = new StringBuilder();
+        appendTsvField(sb, element.getIndexWord());
+        sb.append('\t');
+        appendTsvField(sb, element.getHeadWord());
+        sb.append('\t');
+        appendTsvField(sb, element.getTranslation());
+        sb.append('\t');
+        appendTsvField(sb, element.getExample());
+        sb.append('\t');
+        appendTsvField(sb, element.getPronunciation());
+        sb.append('\n');
+        return sb.toString();
+    }
+
+    private static void appendTsvField(final StringBuilder sb, @Nullable final String field) {
+        if (field == null) {
+            return;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                default:
+                    sb.append(c);
+                    break;
+            }
         }
-        return Collections.emptyList();
     }
 
     /**
@@ -91,6 +436,78 @@ public class PdicDictionary {
         return dictionaryData.getSearchMax();
     }
 
+    /**
+     * Get statistics of the index segment cache.
+     * <p>
+     * The segment cache is used only for a large index area; a small or memory-mapped index is held at once
+     * and the statistics stay zero.
+     * @return statistics snapshot.
+     */
+    public PdicCacheStatistics getIndexCacheStatistics() {
+        return dictionaryData.getIndexCacheStatistics();
+    }
+
+    /**
+     * Get statistics of the data block cache.
+     * <p>
+     * The block cache is not used for a memory-mapped dictionary and the statistics stay zero.
+     * @return statistics snapshot.
+     */
+    public PdicCacheStatistics getBlockCacheStatistics() {
+        return dictionaryData.getBlockCacheStatistics();
+    }
+
+    /**
+     * Get statistics of the lookup result cache.
+     * <p>
+     * The cache is enabled by {@link PdicLoadOptions.PdicLoadOptionsBuilder#setResultCacheSize(long)}; a
+     * lookup answered from the cache is not reported to the lookup listener.
+     * @return statistics snapshot.
+     */
+    public PdicCacheStatistics getResultCacheStatistics() {
+        return dictionaryData.getResultCacheStatistics();
+    }
+
+    /**
+     * Set listener of lookup metrics.
+     * <p>
+     * The listener gets counters and timings of every getEntries, getEntriesPredictive, hasEntry and
+     * getEntriesBatch call, including their asynchronous variants; streams and scans are not reported.
+     * Without listener, lookups only count into per-cursor fields and do not read the clock.
+     * @param listener listener such as {@link PdicLookupStatistics}, or null to disable.
+     */
+    public void setLookupListener(@Nullable final PdicLookupListener listener) {
+        dictionaryData.setLookupListener(listener);
+    }
+
+    /**
+     * Get listener of lookup metrics.
+     * @return listener, or null when disabled.
+     */
+    public @Nullable PdicLookupListener getLookupListener() {
+        return dictionaryData.getLookupListener();
+    }
+
+    /**
+     * Get memory used by the dictionary.
+     * <p>
+     * Reports the index pointer table, the table of first bytes of index words, the index area and the
+     * caches by where they are held: the Java heap, direct buffers or mapped files.
+     * @return memory usage snapshot.
+     */
+    public PdicMemoryUsage getMemoryUsage() {
+        return dictionaryData.getMemoryUsage();
+    }
+
+    /**
+     * Close dictionary file.
+     * @throws IOException when close failed.
+     */
+    @Override
+    public void close() throws IOException {
+        dictionaryData.close();
+    }
+
     /**
      * PDIC/Unicode Dictionary loader.
      * @param file .dic file object.
@@ -100,10 +517,27 @@ public class PdicDictionary {
      */
     public static PdicDictionary loadDictionary(@NotNull final File file, @Nullable final File cacheFile)
             throws IOException {
+        return loadDictionary(file, cacheFile, PdicLoadOptions.DEFAULT);
+    }
+
+    /**
+     * PDIC/Unicode Dictionary loader with options.
+     * @param file .dic file object.
+     * @param cacheFile index cache file object, or null when don't cache.
+     * @param options load options.
+     * @return PdicDicitonary object.
+     * @throws IOException when file read and parse failed.
+     */
+    public static PdicDictionary loadDictionary(@NotNull final File file, @Nullable final File cacheFile,
+                                                @NotNull final PdicLoadOptions options) throws IOException {
         DictionaryData dicInfo;
         if (!file.isFile()) {
             throw new IOException("Target file is not a file.");
         }
+        final Object event = Jfr.beginLoad();
+        final long start = System.nanoTime();
+        final long headerNanos;
+        final long indexNanos;
         PdicHeader header;
         ByteBuffer headerbuff = ByteBuffer.allocate(HEADER_SIZE);
         try (FileInputStream srcStream = new FileInputStream(file);
@@ -123,11 +557,24 @@ public class PdicDictionary {
             }
             dicInfo = new DictionaryData(file, header.headerSize + header.extheader,
                     header.blockSize * header.indexBlock, header.nindex2, header.indexBlkbit,
-                    header.blockSize, DEFAULT_MAX_RESULTS);
-            if (!dicInfo.readIndexBlock(cacheFile)) {
-                throw new RuntimeException("Failed to load dictionary index");
+                    header.blockSize, DEFAULT_MAX_RESULTS, options);
+            final long indexStart = System.nanoTime();
+            headerNanos = indexStart - start;
+            try {
+                if (!dicInfo.readIndexBlock(cacheFile)) {
+                    throw new RuntimeException("Failed to load dictionary index");
+                }
+            } catch (IOException | RuntimeException e) {
+                try {
+                    dicInfo.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
             }
+            indexNanos = System.nanoTime() - indexStart;
         }
-        return new PdicDictionary(dicInfo);
+        Jfr.endLoad(event, file, dicInfo, headerNanos, indexNanos);
+        return new PdicDictionary(dicInfo, options.getWarmUp());
     }
 }
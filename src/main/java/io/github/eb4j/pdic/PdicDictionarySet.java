@@ -0,0 +1,354 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Set of dictionaries looked up together.
+ * <p>
+ * A lookup is dispatched to all dictionaries concurrently on an executor and the results are merged in
+ * the order the dictionaries were added, which is their priority; the order does not depend on which
+ * dictionary answers first. Each dictionary may have a timeout, and a dictionary which does not answer
+ * in time is skipped so that a slow or huge dictionary does not stall the whole lookup. The timed out
+ * lookup is not interrupted, because an interrupted read is retried on the reopened dictionary file,
+ * and it completes in the background.
+ * <p>
+ * Use {@link PdicDictionarySetBuilder} to create an instance.
+ * @author Hiroshi Miura
+ */
+public final class PdicDictionarySet implements Closeable {
+    private final List<Member> members;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    private PdicDictionarySet(final List<Member> members, final Executor executor,
+                              final ExecutorService ownedExecutor) {
+        this.members = members;
+        this.executor = executor;
+        this.ownedExecutor = ownedExecutor;
+    }
+
+    /**
+     * Get dictionaries in priority order.
+     * @return unmodifiable list of dictionaries.
+     */
+    public List<PdicDictionary> getDictionaries() {
+        List<PdicDictionary> dictionaries = new ArrayList<>(members.size());
+        for (Member member : members) {
+            dictionaries.add(member.dictionary);
+        }
+        return Collections.unmodifiableList(dictionaries);
+    }
+
+    /**
+     * Look up word by exact match in all dictionaries.
+     * <p>
+     * Dictionaries which timed out or failed are skipped; use {@link #lookup(String)} to know them.
+     * @param word keyword to search.
+     * @return merged list of entries in priority order.
+     */
+    public List<PdicElement> getEntries(@NotNull final String word) {
+        return merge(lookup(word));
+    }
+
+    /**
+     * Look up word by prefix search in all dictionaries.
+     * <p>
+     * Each dictionary returns up to its {@link PdicDictionary#getMaxSearchCount()} entries. Dictionaries
+     * which timed out or failed are skipped; use {@link #lookupPredictive(String)} to know them.
+     * @param word keyword to search.
+     * @return merged list of entries in priority order.
+     */
+    public List<PdicElement> getEntriesPredictive(@NotNull final String word) {
+        return merge(lookupPredictive(word));
+    }
+
+    /**
+     * Look up word by exact match in all dictionaries and get result of each dictionary.
+     * @param word keyword to search.
+     * @return results in priority order, one for each dictionary.
+     */
+    public List<Result> lookup(@NotNull final String word) {
+        return fanOut(word, PdicDictionary::getEntries);
+    }
+
+    /**
+     * Look up word by prefix search in all dictionaries and get result of each dictionary.
+     * @param word keyword to search.
+     * @return results in priority order, one for each dictionary.
+     */
+    public List<Result> lookupPredictive(@NotNull final String word) {
+        return fanOut(word, PdicDictionary::getEntriesPredictive);
+    }
+
+    /**
+     * Close all dictionaries, and the executor when it was created by the set.
+     * @throws IOException when close failed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        IOException exception = null;
+        for (Member member : members) {
+            try {
+                member.dictionary.close();
+            } catch (IOException e) {
+                if (exception == null) {
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private List<Result> fanOut(final String word, final Lookup lookup) {
+        final long start = System.nanoTime();
+        final List<FutureTask<List<PdicElement>>> tasks = new ArrayList<>(members.size());
+        final Result[] results = new Result[members.size()];
+        for (int i = 0; i < members.size(); i++) {
+            final PdicDictionary dictionary = members.get(i).dictionary;
+            FutureTask<List<PdicElement>> task = new FutureTask<>(() -> lookup.apply(dictionary, word));
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task = null;
+                results[i] = new Result(dictionary, Collections.emptyList(), false, e);
+            }
+            tasks.add(task);
+        }
+        boolean interrupted = false;
+        for (int i = 0; i < members.size(); i++) {
+            final FutureTask<List<PdicElement>> task = tasks.get(i);
+            if (task == null) {
+                continue;
+            }
+            final Member member = members.get(i);
+            Result result;
+            try {
+                List<PdicElement> entries;
+                if (interrupted) {
+                    // 割り込まれたら終わっている結果だけ集める
+                    entries = task.get(0, TimeUnit.NANOSECONDS);
+                } else if (member.timeoutNanos == Long.MAX_VALUE) {
+                    entries = task.get();
+                } else {
+                    entries = task.get(member.timeoutNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+                }
+                result = new Result(member.dictionary, entries, false, null);
+            } catch (TimeoutException e) {
+                // 割り込むと辞書ファイルが閉じられるので、検索は止めずに結果を捨てる
+                task.cancel(false);
+                result = new Result(member.dictionary, Collections.emptyList(), true, null);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                task.cancel(false);
+                result = new Result(member.dictionary, Collections.emptyList(), true, null);
+            } catch (ExecutionException e) {
+                result = new Result(member.dictionary, Collections.emptyList(), false, e.getCause());
+            }
+            results[i] = result;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    private static List<PdicElement> merge(final List<Result> results) {
+        final List<PdicElement> entries = new ArrayList<>();
+        for (Result result : results) {
+            entries.addAll(result.getEntries());
+        }
+        return entries;
+    }
+
+    /**
+     * Lookup method of a dictionary.
+     */
+    @FunctionalInterface
+    private interface Lookup {
+        List<PdicElement> apply(PdicDictionary dictionary, String word) throws IOException;
+    }
+
+    /**
+     * Dictionary and its timeout.
+     */
+    private static final class Member {
+        private final PdicDictionary dictionary;
+        private final long timeoutNanos;
+
+        Member(final PdicDictionary dictionary, final long timeoutNanos) {
+            this.dictionary = dictionary;
+            this.timeoutNanos = timeoutNanos;
+        }
+    }
+
+    /**
+     * Result of lookup in one dictionary of the set.
+     * This is POJO data class.
+     */
+    public static final class Result {
+        private final PdicDictionary dictionary;
+        private final List<PdicElement> entries;
+        private final boolean timedOut;
+        private final Throwable error;
+
+        Result(final PdicDictionary dictionary, final List<PdicElement> entries, final boolean timedOut,
+               final Throwable error) {
+            this.dictionary = dictionary;
+            this.entries = entries;
+            this.timedOut = timedOut;
+            this.error = error;
+        }
+
+        /**
+         * Get dictionary of the result.
+         * @return dictionary.
+         */
+        public PdicDictionary getDictionary() {
+            return dictionary;
+        }
+
+        /**
+         * Get entries found.
+         * @return list of entries, which is empty when timed out or failed.
+         */
+        public List<PdicElement> getEntries() {
+            return entries;
+        }
+
+        /**
+         * Whether the dictionary did not answer within its timeout.
+         * @return true when timed out, otherwise false.
+         */
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * Get error of the lookup.
+         * @return exception thrown by the lookup, or null when succeeded or timed out.
+         */
+        public @Nullable Throwable getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Builder of PdicDictionarySet.
+     */
+    public static final class PdicDictionarySetBuilder {
+        private final List<PdicDictionary> dictionaries = new ArrayList<>();
+        private final List<Long> timeouts = new ArrayList<>();
+        private Executor executor = null;
+        private long defaultTimeoutNanos = Long.MAX_VALUE;
+
+        /**
+         * Add dictionary with the default timeout.
+         * <p>
+         * Dictionaries are prioritized in the order they are added.
+         * @param dictionary loaded dictionary, which is closed with the set.
+         */
+        public void addDictionary(@NotNull final PdicDictionary dictionary) {
+            dictionaries.add(dictionary);
+            timeouts.add(null);
+        }
+
+        /**
+         * Add dictionary with its own timeout.
+         * <p>
+         * Dictionaries are prioritized in the order they are added.
+         * @param dictionary loaded dictionary, which is closed with the set.
+         * @param timeout time to wait for the dictionary from start of a lookup.
+         * @param unit unit of timeout.
+         */
+        public void addDictionary(@NotNull final PdicDictionary dictionary, final long timeout,
+                                  @NotNull final TimeUnit unit) {
+            dictionaries.add(dictionary);
+            timeouts.add(unit.toNanos(timeout));
+        }
+
+        /**
+         * Set timeout of dictionaries added without their own timeout.
+         * <p>
+         * Without timeout a lookup waits for all dictionaries.
+         * @param timeout time to wait for a dictionary from start of a lookup.
+         * @param unit unit of timeout.
+         */
+        public void setTimeout(final long timeout, @NotNull final TimeUnit unit) {
+            defaultTimeoutNanos = unit.toNanos(timeout);
+        }
+
+        /**
+         * Set executor running lookups.
+         * <p>
+         * Lookups block on file I/O, so an executor of virtual threads or a pool with a thread for each
+         * dictionary fits. The executor is not shut down by the set. By default the set creates a pool of
+         * daemon threads, a thread for each processor or each dictionary whichever is more, with a bounded
+         * queue; it is shut down when the set is closed.
+         * @param executor executor.
+         */
+        public void setExecutor(@NotNull final Executor executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * Build dictionary set.
+         * @return PdicDictionarySet object.
+         */
+        public PdicDictionarySet build() {
+            final List<Member> members = new ArrayList<>(dictionaries.size());
+            for (int i = 0; i < dictionaries.size(); i++) {
+                Long timeout = timeouts.get(i);
+                if (timeout == null) {
+                    timeout = defaultTimeoutNanos;
+                }
+                members.add(new Member(dictionaries.get(i), timeout));
+            }
+            if (executor != null) {
+                return new PdicDictionarySet(members, executor, null);
+            }
+            final ExecutorService service = LookupThreadFactory.newBoundedThreadPool(
+                    Math.max(Runtime.getRuntime().availableProcessors(), members.size()));
+            return new PdicDictionarySet(members, service, service);
+        }
+    }
+}
@@ -24,25 +24,67 @@ import org.jetbrains.annotations.Nullable;
 /**
  * PDic dictionary entry data class.
  * This is POJO data class to hold search result entry.
+ * <p>
+ * An entry found in a dictionary keeps a copy of the raw record bytes and decodes each field when its
+ * getter is called first, so fields never read cost no decoding. Decoded values are cached; an element
+ * may be shared between threads.
  * @author wak (Apache-2.0)
  * @author Hiroshi Miura
  */
 public final class PdicElement {
+    private static final byte TAB = 0x09;
+
     private final byte attribute;
-    private final String indexWord;
-    private final String headWord;
-    private final String translation;
-    private final String example;
-    private final String pronunciation;
-
-    private PdicElement(final byte attribute, final String indexWord, final String headWord, final String translation,
-                        final String example, final String pronunciation) {
-        this.attribute = attribute;
-        this.indexWord = indexWord;
-        this.headWord = headWord;
-        this.translation = translation;
-        this.example = example;
-        this.pronunciation = pronunciation;
+    private final byte[] record;
+    private final int indexLength;
+    private final int translationPos;
+    private final int translationLen;
+    private final int examplePos;
+    private final int exampleLen;
+    private final int pronunciationPos;
+    private final int pronunciationLen;
+
+    private volatile String indexWord;
+    private volatile String headWord;
+    private volatile String translation;
+    private volatile String example;
+    private volatile String pronunciation;
+
+    private PdicElement(final PdicElementBuilder builder) {
+        attribute = builder.attribute;
+        record = builder.record;
+        indexLength = builder.indexLength;
+        translationPos = builder.translationPos;
+        translationLen = builder.translationLen;
+        examplePos = builder.examplePos;
+        exampleLen = builder.exampleLen;
+        pronunciationPos = builder.pronunciationPos;
+        pronunciationLen = builder.pronunciationLen;
+        indexWord = builder.indexWord;
+        headWord = builder.headWord;
+        translation = builder.translation;
+        example = builder.example;
+        pronunciation = builder.pronunciation;
+    }
+
+    private String decode(final int pos, final int len) {
+        return Bocu1.decode(record, pos, len);
+    }
+
+    /**
+     * Position of TAB between index word and head word.
+     * <p>
+     * BOCU-1 writes TAB as a single byte 0x09 which never appears in a multibyte sequence, and resets
+     * its state after it, so both words can be decoded separately.
+     * @return position of TAB, or -1 when index has no head word.
+     */
+    private int getTabPosition() {
+        for (int i = 0; i < indexLength; i++) {
+            if (record[i] == TAB) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -53,12 +95,35 @@ public final class PdicElement {
         return attribute;
     }
 
+    /**
+     * Estimate bytes held by the entry, with the strings decoded from the record. (for internal)
+     * @return estimated size in bytes.
+     */
+    int estimateSize() {
+        int size = 96;
+        if (record != null) {
+            // record, and strings of about a char for a byte
+            size += record.length * 3;
+        }
+        return size;
+    }
+
     /**
      * Get indexed word of entry.
      * @return indexed word.
      */
     public @NotNull String getIndexWord() {
-        return indexWord;
+        String result = indexWord;
+        if (result == null) {
+            int tab = getTabPosition();
+            if (tab == -1) {
+                result = decode(0, indexLength);
+            } else {
+                result = decode(0, tab);
+            }
+            indexWord = result;
+        }
+        return result;
     }
 
     /**
@@ -66,7 +131,19 @@ public final class PdicElement {
      * @return head word.
      */
     public @NotNull String getHeadWord() {
-        return headWord;
+        String result = headWord;
+        if (result == null) {
+            // ver6対応 見出し語が、<検索インデックス><TAB><表示用文字列>の順に設定されていてる。
+            // それ以前のverでは空文字列とする。
+            int tab = getTabPosition();
+            if (tab == -1) {
+                result = "";
+            } else {
+                result = decode(tab + 1, indexLength - tab - 1);
+            }
+            headWord = result;
+        }
+        return result;
     }
 
     /**
@@ -74,7 +151,12 @@ public final class PdicElement {
      * @return clause when exist, otherwise null.
      */
     public @Nullable String getTranslation() {
-        return translation;
+        String result = translation;
+        if (result == null && translationLen >= 0) {
+            result = decode(translationPos, translationLen).replace("\r", "");
+            translation = result;
+        }
+        return result;
     }
 
     /**
@@ -82,7 +164,12 @@ public final class PdicElement {
      * @return sentences when exist, otherwise null.
      */
     public @Nullable String getExample() {
-        return example;
+        String result = example;
+        if (result == null && exampleLen >= 0) {
+            result = decode(examplePos, exampleLen).replace("\r", "");
+            example = result;
+        }
+        return result;
     }
 
     /**
@@ -90,7 +177,12 @@ public final class PdicElement {
      * @return pronounciation in phonetic code when exist, otherwise null.
      */
     public @Nullable String getPronunciation() {
-        return pronunciation;
+        String result = pronunciation;
+        if (result == null && pronunciationLen >= 0) {
+            result = decode(pronunciationPos, pronunciationLen);
+            pronunciation = result;
+        }
+        return result;
     }
 
     static final class PdicElementBuilder {
@@ -100,6 +192,14 @@ public final class PdicElement {
         private String translation = null;
         private String example = null;
         private String pronunciation = null;
+        private byte[] record = null;
+        private int indexLength = 0;
+        private int translationPos = 0;
+        private int translationLen = -1;
+        private int examplePos = 0;
+        private int exampleLen = -1;
+        private int pronunciationPos = 0;
+        private int pronunciationLen = -1;
 
         public void setAttribute(final byte attribute) {
             this.attribute = attribute;
@@ -125,9 +225,43 @@ public final class PdicElement {
             this.pronunciation = pronunciation;
         }
 
+        /**
+         * Set raw record bytes to decode on demand.
+         * @param record BOCU-1 encoded index string followed by the record data.
+         * @param indexLength length of index string, which may hold a head word after TAB.
+         */
+        public void setRecord(final byte[] record, final int indexLength) {
+            this.record = record;
+            this.indexLength = indexLength;
+        }
+
+        public void setTranslationRange(final int pos, final int len) {
+            translationPos = pos;
+            translationLen = len;
+        }
+
+        public void setExampleRange(final int pos, final int len) {
+            examplePos = pos;
+            exampleLen = len;
+        }
+
+        public void setPronunciationRange(final int pos, final int len) {
+            pronunciationPos = pos;
+            pronunciationLen = len;
+        }
+
         public PdicElement build() {
-            return new PdicElement(attribute, indexWord, headWord, translation, example, pronunciation);
+            if (record == null) {
+                // index and head word are given as strings.
+                record = new byte[0];
+                if (headWord == null) {
+                    headWord = "";
+                }
+                if (indexWord == null) {
+                    indexWord = "";
+                }
+            }
+            return new PdicElement(this);
         }
     }
 }
-
@@ -0,0 +1,145 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.pdic;
+
+/**
+ * Snapshot of statistics of the negative lookup filter.
+ * This is POJO data class; counters are cumulative since the dictionary is loaded.
+ * @author Hiroshi Miura
+ */
+public final class PdicFilterStatistics {
+    private final int wordCount;
+    private final long size;
+    private final int hashCount;
+    private final double expectedFalsePositiveRate;
+    private final long queryCount;
+    private final long negativeCount;
+    private final long falsePositiveCount;
+    private final long bypassCount;
+
+    @SuppressWarnings("parameternumber")
+    PdicFilterStatistics(final int wordCount, final long size, final int hashCount,
+                         final double expectedFalsePositiveRate, final long queryCount, final long negativeCount,
+                         final long falsePositiveCount, final long bypassCount) {
+        this.wordCount = wordCount;
+        this.size = size;
+        this.hashCount = hashCount;
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+        this.queryCount = queryCount;
+        this.negativeCount = negativeCount;
+        this.falsePositiveCount = falsePositiveCount;
+        this.bypassCount = bypassCount;
+    }
+
+    /**
+     * Get number of index words in the filter.
+     * @return word count.
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Get memory used by the filter.
+     * @return size in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Get memory used by the filter for an index word.
+     * @return bytes per word.
+     */
+    public double getBytesPerWord() {
+        if (wordCount == 0) {
+            return 0;
+        }
+        return (double) size / wordCount;
+    }
+
+    /**
+     * Get number of hash functions.
+     * @return hash count.
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Get false positive rate expected from the size and the number of words.
+     * @return expected rate.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return expectedFalsePositiveRate;
+    }
+
+    /**
+     * Get count of lookups which consulted the filter.
+     * @return query count.
+     */
+    public long getQueryCount() {
+        return queryCount;
+    }
+
+    /**
+     * Get count of lookups answered by the filter without I/O.
+     * @return negative count.
+     */
+    public long getNegativeCount() {
+        return negativeCount;
+    }
+
+    /**
+     * Get count of lookups which the filter passed but found nothing.
+     * @return false positive count.
+     */
+    public long getFalsePositiveCount() {
+        return falsePositiveCount;
+    }
+
+    /**
+     * Get count of lookups which the filter passed without test, because the word contains TAB.
+     * <p>
+     * They are included in the query count, but not in the false positive count.
+     * @return bypass count.
+     */
+    public long getBypassCount() {
+        return bypassCount;
+    }
+
+    /**
+     * Get observed ratio of false positives to lookups of absent words.
+     * @return false positive rate, or 0.0 when no absent word was looked up.
+     */
+    public double getFalsePositiveRate() {
+        long absent = negativeCount + falsePositiveCount;
+        if (absent == 0) {
+            return 0.0;
+        }
+        return (double) falsePositiveCount / absent;
+    }
+
+    @Override
+    public String toString() {
+        return "PdicFilterStatistics{wordCount=" + wordCount + ", size=" + size + ", hashCount=" + hashCount
+                + ", expectedFalsePositiveRate=" + expectedFalsePositiveRate + ", queryCount=" + queryCount
+                + ", negativeCount=" + negativeCount + ", falsePositiveCount=" + falsePositiveCount
+                + ", bypassCount=" + bypassCount + "}";
+    }
+}
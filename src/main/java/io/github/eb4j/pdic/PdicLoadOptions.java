@@ -0,0 +1,244 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Options for {@link PdicDictionary#loadDictionary(java.io.File, java.io.File, PdicLoadOptions)}.
+ * Use {@link PdicLoadOptionsBuilder} to create an instance.
+ * @author Hiroshi Miura
+ */
+public final class PdicLoadOptions {
+    /**
+     * Default size of index segment cache in bytes.
+     */
+    public static final long DEFAULT_INDEX_CACHE_SIZE = 8L * 1024 * 1024;
+
+    /**
+     * Default size of data block cache in bytes.
+     */
+    public static final long DEFAULT_BLOCK_CACHE_SIZE = 2L * 1024 * 1024;
+
+    /**
+     * Default options.
+     */
+    public static final PdicLoadOptions DEFAULT = new PdicLoadOptionsBuilder().build();
+
+    private final boolean memoryMapped;
+    private final long indexCacheSize;
+    private final long blockCacheSize;
+    private final boolean offHeapIndex;
+    private final PdicWarmUp warmUp;
+    private final int bloomFilterBitsPerWord;
+    private final long resultCacheSize;
+    private final boolean normalizedIndex;
+
+    @SuppressWarnings("parameternumber")
+    private PdicLoadOptions(final boolean memoryMapped, final long indexCacheSize, final long blockCacheSize,
+                            final boolean offHeapIndex, final PdicWarmUp warmUp, final int bloomFilterBitsPerWord,
+                            final long resultCacheSize, final boolean normalizedIndex) {
+        this.memoryMapped = memoryMapped;
+        this.indexCacheSize = indexCacheSize;
+        this.blockCacheSize = blockCacheSize;
+        this.offHeapIndex = offHeapIndex;
+        this.warmUp = warmUp;
+        this.bloomFilterBitsPerWord = bloomFilterBitsPerWord;
+        this.resultCacheSize = resultCacheSize;
+        this.normalizedIndex = normalizedIndex;
+    }
+
+    /**
+     * Whether the dictionary file is accessed through memory mapping.
+     * @return true when memory-mapped, otherwise false.
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Budget of index segment cache.
+     * @return size in bytes.
+     */
+    public long getIndexCacheSize() {
+        return indexCacheSize;
+    }
+
+    /**
+     * Budget of data block cache.
+     * @return size in bytes.
+     */
+    public long getBlockCacheSize() {
+        return blockCacheSize;
+    }
+
+    /**
+     * Whether index structures are held outside of the Java heap.
+     * @return true when off-heap, otherwise false.
+     */
+    public boolean isOffHeapIndex() {
+        return offHeapIndex;
+    }
+
+    /**
+     * Level of warm-up started at load.
+     * @return warm-up level.
+     */
+    public PdicWarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Bits per index word of the negative lookup filter.
+     * @return bits per word, 0 when the filter is disabled.
+     */
+    public int getBloomFilterBitsPerWord() {
+        return bloomFilterBitsPerWord;
+    }
+
+    /**
+     * Budget of lookup result cache.
+     * @return size in estimated bytes, 0 when the cache is disabled.
+     */
+    public long getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    /**
+     * Whether the normalized index is built or read at load.
+     * @return true when loaded with the dictionary, false when built at first normalized lookup.
+     */
+    public boolean isNormalizedIndex() {
+        return normalizedIndex;
+    }
+
+    /**
+     * Builder of PdicLoadOptions.
+     */
+    public static final class PdicLoadOptionsBuilder {
+        private boolean memoryMapped = false;
+        private long indexCacheSize = DEFAULT_INDEX_CACHE_SIZE;
+        private long blockCacheSize = DEFAULT_BLOCK_CACHE_SIZE;
+        private boolean offHeapIndex = false;
+        private PdicWarmUp warmUp = PdicWarmUp.NONE;
+        private int bloomFilterBitsPerWord = 0;
+        private long resultCacheSize = 0;
+        private boolean normalizedIndex = false;
+
+        /**
+         * Map the index area and the dictionary body into memory instead of reading them.
+         * <p>
+         * Lookups then work directly on the mapping and the OS page cache caches the data.
+         * A dictionary body larger than 2GB is always read from the file.
+         * @param memoryMapped true to enable memory mapping.
+         */
+        public void setMemoryMapped(final boolean memoryMapped) {
+            this.memoryMapped = memoryMapped;
+        }
+
+        /**
+         * Set budget of the cache for index segments of a large dictionary.
+         * @param indexCacheSize size in bytes, 0 to disable the cache.
+         */
+        public void setIndexCacheSize(final long indexCacheSize) {
+            this.indexCacheSize = indexCacheSize;
+        }
+
+        /**
+         * Set budget of the cache for data blocks read from the file.
+         * <p>
+         * Blocks of frequently looked up words are then served without disk read and allocation.
+         * The cache is not used in memory-mapped mode.
+         * @param blockCacheSize size in bytes, 0 to disable the cache.
+         */
+        public void setBlockCacheSize(final long blockCacheSize) {
+            this.blockCacheSize = blockCacheSize;
+        }
+
+        /**
+         * Hold the index pointer table, the table of first bytes of index words and the index area in
+         * direct buffers or mappings instead of the Java heap.
+         * <p>
+         * The whole index area is then held at once and the index segment cache is not used. The pointer
+         * table is mapped from the index cache file when it is given. Heap usage and GC work stay small when
+         * many dictionaries are loaded; direct memory is released when the dictionary is garbage collected.
+         * @param offHeapIndex true to hold index structures off-heap.
+         */
+        public void setOffHeapIndex(final boolean offHeapIndex) {
+            this.offHeapIndex = offHeapIndex;
+        }
+
+        /**
+         * Start warm-up of the dictionary in background at load.
+         * <p>
+         * The warm-up runs on the default executor of asynchronous lookups, and
+         * {@link PdicDictionary#getWarmUp()} returns a future which completes when it is done.
+         * @param warmUp warm-up level.
+         */
+        public void setWarmUp(@NotNull final PdicWarmUp warmUp) {
+            this.warmUp = warmUp;
+        }
+
+        /**
+         * Enable Bloom filter of index words to answer lookups of absent words without I/O.
+         * <p>
+         * The filter is built at load by a scan of all data blocks and stored next to the index cache
+         * file, from which it is read at following loads. Exact lookups consult the filter first. 10 bits
+         * per word give about 1% false positives for 1.25 bytes of heap per word.
+         * @param bitsPerWord bits per word, 0 to disable the filter.
+         */
+        public void setBloomFilterBitsPerWord(final int bitsPerWord) {
+            this.bloomFilterBitsPerWord = bitsPerWord;
+        }
+
+        /**
+         * Set budget of the cache for results of exact and predictive lookups.
+         * <p>
+         * Results are cached by lookup type, search word and maximum count of results, and returned as
+         * unmodifiable lists. The budget is in bytes estimated from the entries of results. The cache is
+         * disabled by default.
+         * @param resultCacheSize size in bytes, 0 to disable the cache.
+         */
+        public void setResultCacheSize(final long resultCacheSize) {
+            this.resultCacheSize = resultCacheSize;
+        }
+
+        /**
+         * Load the normalized index of index words with the dictionary.
+         * <p>
+         * The index maps index words folded by NFKC and lower case to their entries, and serves
+         * {@link PdicDictionary#getEntriesNormalized(String)}. It is built by a scan of all data blocks
+         * and stored next to the index cache file, from which it is read at following loads. Without
+         * this option it is built at the first normalized lookup. It takes 8 bytes of heap per entry.
+         * @param normalizedIndex true to load the index with the dictionary.
+         */
+        public void setNormalizedIndex(final boolean normalizedIndex) {
+            this.normalizedIndex = normalizedIndex;
+        }
+
+        /**
+         * Build options.
+         * @return PdicLoadOptions object.
+         */
+        public PdicLoadOptions build() {
+            return new PdicLoadOptions(memoryMapped, indexCacheSize, blockCacheSize, offHeapIndex, warmUp,
+                    bloomFilterBitsPerWord, resultCacheSize, normalizedIndex);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.pdic;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener of lookup metrics.
+ * <p>
+ * Set by {@link PdicDictionary#setLookupListener(PdicLookupListener)}. The listener is called on the
+ * thread which ran the lookup, after the lookup completed, so it should be quick and must not throw.
+ * Bridge the metrics to a metrics library, or use {@link PdicLookupStatistics} for cumulative counters.
+ * @author Hiroshi Miura
+ */
+@FunctionalInterface
+public interface PdicLookupListener {
+    /**
+     * Called when a lookup completed.
+     * @param metrics counters and timings of the lookup.
+     */
+    void lookupCompleted(@NotNull PdicLookupMetrics metrics);
+}
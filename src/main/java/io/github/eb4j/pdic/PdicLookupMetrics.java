@@ -0,0 +1,207 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.pdic;
+
+/**
+ * Counters and timings of a lookup.
+ * This is POJO data class passed to {@link PdicLookupListener}.
+ * @author Hiroshi Miura
+ */
+public final class PdicLookupMetrics {
+    /**
+     * Type of lookup.
+     */
+    public enum Type {
+        /**
+         * {@link PdicDictionary#getEntries(String)}.
+         */
+        EXACT,
+        /**
+         * {@link PdicDictionary#getEntriesPredictive(String)}.
+         */
+        PREDICTIVE,
+        /**
+         * {@link PdicDictionary#hasEntry(String)}.
+         */
+        HAS_ENTRY,
+        /**
+         * {@link PdicDictionary#getEntriesBatch(java.util.Collection)}, reported once for all words.
+         */
+        BATCH,
+        /**
+         * {@link PdicDictionary#getEntriesNormalized(String)}.
+         */
+        NORMALIZED,
+        /**
+         * {@link PdicDictionary#getEntriesFuzzy(String, int, int)}.
+         */
+        FUZZY
+    }
+
+    private final Type type;
+    private final long indexProbes;
+    private final long indexCompares;
+    private final long segmentHits;
+    private final long segmentMisses;
+    private final long blocksLoaded;
+    private final long blocksRead;
+    private final long bytesRead;
+    private final long entriesDecoded;
+    private final long entriesDiscarded;
+    private final long results;
+    private final long elapsedNanos;
+    private final long blockReadNanos;
+
+    @SuppressWarnings("parameternumber")
+    PdicLookupMetrics(final Type type, final long indexProbes, final long indexCompares, final long segmentHits,
+                      final long segmentMisses, final long blocksLoaded, final long blocksRead, final long bytesRead,
+                      final long entriesDecoded, final long entriesDiscarded, final long results,
+                      final long elapsedNanos, final long blockReadNanos) {
+        this.type = type;
+        this.indexProbes = indexProbes;
+        this.indexCompares = indexCompares;
+        this.segmentHits = segmentHits;
+        this.segmentMisses = segmentMisses;
+        this.blocksLoaded = blocksLoaded;
+        this.blocksRead = blocksRead;
+        this.bytesRead = bytesRead;
+        this.entriesDecoded = entriesDecoded;
+        this.entriesDiscarded = entriesDiscarded;
+        this.results = results;
+        this.elapsedNanos = elapsedNanos;
+        this.blockReadNanos = blockReadNanos;
+    }
+
+    /**
+     * Get type of lookup.
+     * @return type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get number of probes of index binary search.
+     * @return probe count.
+     */
+    public long getIndexProbes() {
+        return indexProbes;
+    }
+
+    /**
+     * Get number of probes which compared the index area because the first bytes of the words tied.
+     * @return compare count.
+     */
+    public long getIndexCompares() {
+        return indexCompares;
+    }
+
+    /**
+     * Get number of index segments found in the segment cache.
+     * <p>
+     * Stays zero when the index area is held at once.
+     * @return hit count.
+     */
+    public long getSegmentHits() {
+        return segmentHits;
+    }
+
+    /**
+     * Get number of index segments read from the file.
+     * @return miss count.
+     */
+    public long getSegmentMisses() {
+        return segmentMisses;
+    }
+
+    /**
+     * Get number of data blocks scanned, including the next block when an entry was not in the first one.
+     * @return block count.
+     */
+    public long getBlocksLoaded() {
+        return blocksLoaded;
+    }
+
+    /**
+     * Get number of data blocks read from the file, which were not in the block cache nor mapped.
+     * @return block count.
+     */
+    public long getBlocksRead() {
+        return blocksRead;
+    }
+
+    /**
+     * Get bytes of data blocks read from the file.
+     * @return size in bytes.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Get number of entries copied out of data blocks.
+     * @return entry count.
+     */
+    public long getEntriesDecoded() {
+        return entriesDecoded;
+    }
+
+    /**
+     * Get number of entries which matched the prefix but were skipped by the exact match filter.
+     * @return entry count.
+     */
+    public long getEntriesDiscarded() {
+        return entriesDiscarded;
+    }
+
+    /**
+     * Get number of entries returned.
+     * <p>
+     * For {@link Type#HAS_ENTRY} it is 1 when found, otherwise 0.
+     * @return entry count.
+     */
+    public long getResults() {
+        return results;
+    }
+
+    /**
+     * Get time of the lookup.
+     * @return time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Get time spent reading data blocks from the file.
+     * @return time in nanoseconds.
+     */
+    public long getBlockReadNanos() {
+        return blockReadNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "PdicLookupMetrics{type=" + type + ", indexProbes=" + indexProbes + ", indexCompares=" + indexCompares
+                + ", segmentHits=" + segmentHits + ", segmentMisses=" + segmentMisses
+                + ", blocksLoaded=" + blocksLoaded + ", blocksRead=" + blocksRead + ", bytesRead=" + bytesRead
+                + ", entriesDecoded=" + entriesDecoded + ", entriesDiscarded=" + entriesDiscarded
+                + ", results=" + results + ", elapsedNanos=" + elapsedNanos + ", blockReadNanos=" + blockReadNanos
+                + "}";
+    }
+}
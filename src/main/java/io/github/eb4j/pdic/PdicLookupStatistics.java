@@ -0,0 +1,205 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.pdic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative lookup statistics.
+ * <p>
+ * A listener summing metrics of all lookups; counters are {@link LongAdder}, so lookups on many threads
+ * update them without contention. One instance may be shared by several dictionaries.
+ * <pre>
+ * PdicLookupStatistics statistics = new PdicLookupStatistics();
+ * dictionary.setLookupListener(statistics);
+ * </pre>
+ * @author Hiroshi Miura
+ */
+public final class PdicLookupStatistics implements PdicLookupListener {
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder indexProbes = new LongAdder();
+    private final LongAdder indexCompares = new LongAdder();
+    private final LongAdder segmentHits = new LongAdder();
+    private final LongAdder segmentMisses = new LongAdder();
+    private final LongAdder blocksLoaded = new LongAdder();
+    private final LongAdder blocksRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder entriesDecoded = new LongAdder();
+    private final LongAdder entriesDiscarded = new LongAdder();
+    private final LongAdder results = new LongAdder();
+    private final LongAdder elapsedNanos = new LongAdder();
+    private final LongAdder blockReadNanos = new LongAdder();
+
+    @Override
+    public void lookupCompleted(@NotNull final PdicLookupMetrics metrics) {
+        lookups.increment();
+        indexProbes.add(metrics.getIndexProbes());
+        indexCompares.add(metrics.getIndexCompares());
+        segmentHits.add(metrics.getSegmentHits());
+        segmentMisses.add(metrics.getSegmentMisses());
+        blocksLoaded.add(metrics.getBlocksLoaded());
+        blocksRead.add(metrics.getBlocksRead());
+        bytesRead.add(metrics.getBytesRead());
+        entriesDecoded.add(metrics.getEntriesDecoded());
+        entriesDiscarded.add(metrics.getEntriesDiscarded());
+        results.add(metrics.getResults());
+        elapsedNanos.add(metrics.getElapsedNanos());
+        blockReadNanos.add(metrics.getBlockReadNanos());
+    }
+
+    /**
+     * Get number of lookups.
+     * @return lookup count.
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * Get total probes of index binary search.
+     * @return probe count.
+     * @see PdicLookupMetrics#getIndexProbes()
+     */
+    public long getIndexProbes() {
+        return indexProbes.sum();
+    }
+
+    /**
+     * Get total probes which compared the index area.
+     * @return compare count.
+     * @see PdicLookupMetrics#getIndexCompares()
+     */
+    public long getIndexCompares() {
+        return indexCompares.sum();
+    }
+
+    /**
+     * Get total index segments found in the segment cache.
+     * @return hit count.
+     */
+    public long getSegmentHits() {
+        return segmentHits.sum();
+    }
+
+    /**
+     * Get total index segments read from the file.
+     * @return miss count.
+     */
+    public long getSegmentMisses() {
+        return segmentMisses.sum();
+    }
+
+    /**
+     * Get total data blocks scanned.
+     * @return block count.
+     * @see PdicLookupMetrics#getBlocksLoaded()
+     */
+    public long getBlocksLoaded() {
+        return blocksLoaded.sum();
+    }
+
+    /**
+     * Get total data blocks read from the file.
+     * @return block count.
+     */
+    public long getBlocksRead() {
+        return blocksRead.sum();
+    }
+
+    /**
+     * Get total bytes of data blocks read from the file.
+     * @return size in bytes.
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * Get total entries copied out of data blocks.
+     * @return entry count.
+     */
+    public long getEntriesDecoded() {
+        return entriesDecoded.sum();
+    }
+
+    /**
+     * Get total entries skipped by the exact match filter.
+     * @return entry count.
+     */
+    public long getEntriesDiscarded() {
+        return entriesDiscarded.sum();
+    }
+
+    /**
+     * Get total entries returned.
+     * @return entry count.
+     */
+    public long getResults() {
+        return results.sum();
+    }
+
+    /**
+     * Get total time of lookups.
+     * @return time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos.sum();
+    }
+
+    /**
+     * Get total time spent reading data blocks from the file.
+     * @return time in nanoseconds.
+     */
+    public long getBlockReadNanos() {
+        return blockReadNanos.sum();
+    }
+
+    /**
+     * Clear all counters.
+     * <p>
+     * Lookups completing during the reset may be partially counted.
+     */
+    public void reset() {
+        lookups.reset();
+        indexProbes.reset();
+        indexCompares.reset();
+        segmentHits.reset();
+        segmentMisses.reset();
+        blocksLoaded.reset();
+        blocksRead.reset();
+        bytesRead.reset();
+        entriesDecoded.reset();
+        entriesDiscarded.reset();
+        results.reset();
+        elapsedNanos.reset();
+        blockReadNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "PdicLookupStatistics{lookups=" + getLookupCount() + ", indexProbes=" + getIndexProbes()
+                + ", indexCompares=" + getIndexCompares() + ", segmentHits=" + getSegmentHits()
+                + ", segmentMisses=" + getSegmentMisses() + ", blocksLoaded=" + getBlocksLoaded()
+                + ", blocksRead=" + getBlocksRead() + ", bytesRead=" + getBytesRead()
+                + ", entriesDecoded=" + getEntriesDecoded() + ", entriesDiscarded=" + getEntriesDiscarded()
+                + ", results=" + getResults() + ", elapsedNanos=" + getElapsedNanos()
+                + ", blockReadNanos=" + getBlockReadNanos() + "}";
+    }
+}
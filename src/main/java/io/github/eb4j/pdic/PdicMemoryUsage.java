@@ -0,0 +1,78 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+/**
+ * Snapshot of memory used by a dictionary.
+ * This is POJO data class; sizes are bytes of the index structures and caches held by the dictionary,
+ * and objects of lookups in progress and their results are not counted.
+ * @author Hiroshi Miura
+ */
+public final class PdicMemoryUsage {
+    private final long heapSize;
+    private final long directSize;
+    private final long mappedSize;
+
+    PdicMemoryUsage(final long heapSize, final long directSize, final long mappedSize) {
+        this.heapSize = heapSize;
+        this.directSize = directSize;
+        this.mappedSize = mappedSize;
+    }
+
+    /**
+     * Get bytes held in the Java heap.
+     * @return size in bytes.
+     */
+    public long getHeapSize() {
+        return heapSize;
+    }
+
+    /**
+     * Get bytes held in direct buffers.
+     * @return size in bytes.
+     */
+    public long getDirectSize() {
+        return directSize;
+    }
+
+    /**
+     * Get bytes of mapped files.
+     * <p>
+     * Mapped pages are loaded and evicted by the OS page cache, so this is address space rather than
+     * resident memory.
+     * @return size in bytes.
+     */
+    public long getMappedSize() {
+        return mappedSize;
+    }
+
+    /**
+     * Get bytes held outside of the Java heap.
+     * @return sum of direct and mapped size in bytes.
+     */
+    public long getOffHeapSize() {
+        return directSize + mappedSize;
+    }
+
+    @Override
+    public String toString() {
+        return "PdicMemoryUsage{heapSize=" + heapSize + ", directSize=" + directSize
+                + ", mappedSize=" + mappedSize + "}";
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+/**
+ * Level of warm-up reading a dictionary ahead of lookups.
+ * <p>
+ * Without warm-up the index segments and data blocks are read lazily, so the first lookups after load
+ * wait for disk. See {@link PdicDictionary#warmUp(PdicWarmUp, java.util.concurrent.Executor)}.
+ * @author Hiroshi Miura
+ */
+public enum PdicWarmUp {
+    /**
+     * No warm-up.
+     */
+    NONE,
+    /**
+     * Read the index area, and the index cache file when it is mapped, into memory.
+     */
+    INDEX,
+    /**
+     * Index, and data blocks spread over the whole dictionary up to the budget of the data block cache.
+     * In memory-mapped mode the pages of the blocks are touched instead.
+     */
+    INDEX_AND_BLOCKS,
+    /**
+     * Index and data blocks, and read ahead the whole dictionary body. In memory-mapped mode the whole
+     * mapping is loaded, otherwise the file is read once sequentially so it stays in the OS page cache.
+     */
+    FULL
+}
@@ -0,0 +1,75 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator of prefix search results.
+ * <p>
+ * The search starts on the first pull and walks forward entry by entry across block boundaries with its
+ * own {@link SearchCursor}, so memory use does not depend on the number of matches and reading stops
+ * when the consumer stops pulling. The number of results is not limited by the max search count.
+ */
+final class PredictiveSpliterator extends Spliterators.AbstractSpliterator<PdicElement> {
+    private final DictionaryData dictionaryData;
+    private final String word;
+    private final SearchCursor cursor = new SearchCursor();
+    private boolean started = false;
+    private boolean finished = false;
+
+    PredictiveSpliterator(final DictionaryData dictionaryData, final String word) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        this.dictionaryData = dictionaryData;
+        this.word = word;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super PdicElement> action) {
+        if (finished) {
+            return false;
+        }
+        boolean found;
+        try {
+            if (started) {
+                found = dictionaryData.hasMoreResult(cursor, true);
+            } else {
+                started = true;
+                found = dictionaryData.startSearch(cursor, word);
+            }
+        } catch (IOException e) {
+            finished = true;
+            throw new UncheckedIOException(e);
+        }
+        PdicElement element = null;
+        if (found) {
+            element = cursor.getAnalyze().getRecord();
+        }
+        if (element == null) {
+            finished = true;
+            return false;
+        }
+        action.accept(element);
+        return true;
+    }
+}
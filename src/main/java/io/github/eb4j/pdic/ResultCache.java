@@ -0,0 +1,279 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.github.eb4j.pdic;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size bounded cache of lookup results with segmented LRU eviction.
+ * <p>
+ * A result enters the probation segment, and moves to the protected segment when it is hit again, so
+ * that a burst of words looked up once does not flush frequently looked up words. The protected segment
+ * holds up to 80% of the budget and demotes its least recently used entry to probation; victims are taken
+ * from probation first. The cache is split into shards guarded by their own lock, chosen by hash of the key.
+ * <p>
+ * Weights are estimated bytes of the key and the entries of a result. A cache belongs to a dictionary
+ * instance, so a dictionary loaded again starts with an empty cache.
+ *
+ * @author Hiroshi Miura
+ */
+final class ResultCache {
+    private static final int MAX_SHARDS = 16;
+    private static final int EXPECTED_WEIGHT = 1024;
+
+    private final Shard[] shards;
+    private final long maxWeight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     * @param maxWeight budget in estimated bytes, 0 disables the cache.
+     */
+    ResultCache(final long maxWeight) {
+        this.maxWeight = Math.max(0, maxWeight);
+        // keep at least 64 typical results in a shard.
+        long entries = this.maxWeight / EXPECTED_WEIGHT;
+        int count = 1;
+        while (count < MAX_SHARDS && entries / (count * 2) >= 64) {
+            count *= 2;
+        }
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(this.maxWeight / count, evictions);
+        }
+    }
+
+    /**
+     * Is cache enabled?
+     * @return true when cache has a budget.
+     */
+    boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    /**
+     * Create key of a lookup.
+     * @param type type of lookup.
+     * @param word search word.
+     * @param maxResults maximum count of results.
+     * @return key.
+     */
+    static Key key(final PdicLookupMetrics.Type type, final String word, final int maxResults) {
+        return new Key(type, word, maxResults);
+    }
+
+    private Shard shardOf(final Key key) {
+        int h = key.hash * 0x9E3779B9;
+        return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+    }
+
+    /**
+     * Get cached result.
+     * @param key key.
+     * @return unmodifiable result, or null when not cached.
+     */
+    List<PdicElement> get(final Key key) {
+        List<PdicElement> value = shardOf(key).get(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Put result.
+     * @param key key.
+     * @param result result of lookup.
+     * @return unmodifiable result cached or to return.
+     */
+    List<PdicElement> put(final Key key, final List<PdicElement> result) {
+        final List<PdicElement> value;
+        if (result.isEmpty()) {
+            value = Collections.emptyList();
+        } else {
+            value = Collections.unmodifiableList(result);
+        }
+        shardOf(key).put(key, value, weigh(key, value));
+        return value;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * Get snapshot of statistics.
+     * @return statistics.
+     */
+    PdicCacheStatistics getStatistics() {
+        long size = 0;
+        long weight = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.probation.size() + shard.protectedEntries.size();
+                weight += shard.probationWeight + shard.protectedWeight;
+            }
+        }
+        return new PdicCacheStatistics(hits.sum(), misses.sum(), evictions.sum(), size, weight, maxWeight);
+    }
+
+    /**
+     * Estimate bytes held by a result.
+     */
+    private static int weigh(final Key key, final List<PdicElement> value) {
+        long weight = 64 + 2L * key.word.length();
+        for (PdicElement element : value) {
+            weight += element.estimateSize();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    /**
+     * Key of lookup type, search word and maximum count of results.
+     */
+    static final class Key {
+        private final PdicLookupMetrics.Type type;
+        private final String word;
+        private final int maxResults;
+        private final int hash;
+
+        Key(final PdicLookupMetrics.Type type, final String word, final int maxResults) {
+            this.type = type;
+            this.word = word;
+            this.maxResults = maxResults;
+            hash = (word.hashCode() * 31 + type.ordinal()) * 31 + maxResults;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && type == other.type && maxResults == other.maxResults
+                    && word.equals(other.word);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Cached result and its weight.
+     */
+    private static final class Node {
+        private final List<PdicElement> value;
+        private final int weight;
+
+        Node(final List<PdicElement> value, final int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Shard {
+        private final long maxShardWeight;
+        private final long maxProtectedWeight;
+        private final LongAdder evictions;
+        // 挿入順のprobationとアクセス順のprotected
+        private final LinkedHashMap<Key, Node> probation = new LinkedHashMap<>(16, 0.75f, false);
+        private final LinkedHashMap<Key, Node> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+        private long probationWeight;
+        private long protectedWeight;
+
+        Shard(final long maxShardWeight, final LongAdder evictions) {
+            this.maxShardWeight = maxShardWeight;
+            this.maxProtectedWeight = maxShardWeight * 4 / 5;
+            this.evictions = evictions;
+        }
+
+        synchronized List<PdicElement> get(final Key key) {
+            Node node = protectedEntries.get(key);
+            if (node != null) {
+                return node.value;
+            }
+            node = probation.remove(key);
+            if (node == null) {
+                return null;
+            }
+            probationWeight -= node.weight;
+            protectedEntries.put(key, node);
+            protectedWeight += node.weight;
+            // 溢れたprotectedの最古をprobationへ戻す
+            Iterator<Map.Entry<Key, Node>> it = protectedEntries.entrySet().iterator();
+            while (protectedWeight > maxProtectedWeight && it.hasNext()) {
+                Map.Entry<Key, Node> eldest = it.next();
+                it.remove();
+                protectedWeight -= eldest.getValue().weight;
+                probation.put(eldest.getKey(), eldest.getValue());
+                probationWeight += eldest.getValue().weight;
+            }
+            return node.value;
+        }
+
+        synchronized void put(final Key key, final List<PdicElement> value, final int weight) {
+            if (weight > maxShardWeight || probation.containsKey(key) || protectedEntries.containsKey(key)) {
+                return;
+            }
+            while (probationWeight + protectedWeight + weight > maxShardWeight) {
+                evict();
+            }
+            probation.put(key, new Node(value, weight));
+            probationWeight += weight;
+        }
+
+        private void evict() {
+            Iterator<Map.Entry<Key, Node>> it;
+            if (probation.isEmpty()) {
+                it = protectedEntries.entrySet().iterator();
+                protectedWeight -= it.next().getValue().weight;
+            } else {
+                it = probation.entrySet().iterator();
+                probationWeight -= it.next().getValue().weight;
+            }
+            it.remove();
+            evictions.increment();
+        }
+
+        synchronized void clear() {
+            probation.clear();
+            protectedEntries.clear();
+            probationWeight = 0;
+            protectedWeight = 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+/**
+ * Per-lookup search state.
+ * <p>
+ * DictionaryData itself holds only immutable data after loading, so every lookup carries
+ * its own cursor and can run concurrently with others against a single dictionary.
+ * <p>
+ * A cursor also keeps scratch space for the encoded search word, so a cursor reused by one thread
+ * encodes keys without allocation.
+ */
+final class SearchCursor {
+    private final AnalyzeBlock analyze = new AnalyzeBlock();
+    private int lastIndex = 0;
+    private byte[] key = new byte[64];
+
+    SearchCursor() {
+    }
+
+    /**
+     * Encode search word into the key buffer of the cursor.
+     * <p>
+     * Encoded bytes are valid until next call and are returned by {@link #getKey()}.
+     * @param word search word.
+     * @return length of encoded key.
+     */
+    int encodeKey(final String word) {
+        final int maxLength = Bocu1.maxEncodedLength(word.length());
+        if (key.length < maxLength) {
+            key = new byte[maxLength];
+        }
+        return Bocu1.encode(word, key);
+    }
+
+    /**
+     * Encoded search word.
+     * @return key buffer array, valid up to the length returned by {@link #encodeKey(String)}.
+     */
+    byte[] getKey() {
+        return key;
+    }
+
+    AnalyzeBlock getAnalyze() {
+        return analyze;
+    }
+
+    /**
+     * Index number of the block the cursor is positioned at.
+     * @return index number.
+     */
+    int getLastIndex() {
+        return lastIndex;
+    }
+
+    void setLastIndex(final int lastIndex) {
+        this.lastIndex = lastIndex;
+    }
+}
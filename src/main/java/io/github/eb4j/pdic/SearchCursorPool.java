@@ -0,0 +1,111 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Small bounded pool of search cursors owned by a dictionary.
+ * <p>
+ * A lookup takes a cursor and returns it when done, so cursors and their scratch buffers are reused
+ * across lookups on any thread, pooled or virtual, without growing with the number of threads. When all
+ * cursors are in use a new one is made and dropped on return. Cursors refer to data blocks, which may be
+ * slices of a mapping, so the pool is cleared when the dictionary is closed.
+ *
+ * @author Hiroshi Miura
+ */
+final class SearchCursorPool {
+    private final AtomicReferenceArray<SearchCursor> cursors;
+    private volatile boolean closed;
+
+    /**
+     * Constructor.
+     * @param size maximum number of idle cursors.
+     */
+    SearchCursorPool(final int size) {
+        cursors = new AtomicReferenceArray<>(Math.max(1, size));
+    }
+
+    private int home() {
+        return (int) (Thread.currentThread().getId() % cursors.length());
+    }
+
+    /**
+     * Take an idle cursor, or make a new one.
+     * @return cursor for one lookup.
+     */
+    SearchCursor acquire() {
+        final int length = cursors.length();
+        final int home = home();
+        for (int i = 0; i < length; i++) {
+            final SearchCursor cursor = cursors.getAndSet((home + i) % length, null);
+            if (cursor != null) {
+                return cursor;
+            }
+        }
+        return new SearchCursor();
+    }
+
+    /**
+     * Return a cursor after a lookup.
+     * @param cursor cursor taken by {@link #acquire()}.
+     */
+    void release(final SearchCursor cursor) {
+        if (closed) {
+            return;
+        }
+        final int length = cursors.length();
+        final int home = home();
+        for (int i = 0; i < length; i++) {
+            final int slot = (home + i) % length;
+            if (cursors.compareAndSet(slot, null, cursor)) {
+                if (closed) {
+                    // closed while returning
+                    cursors.compareAndSet(slot, cursor, null);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop all idle cursors and stop pooling returned ones.
+     */
+    void clear() {
+        closed = true;
+        for (int i = 0; i < cursors.length(); i++) {
+            cursors.set(i, null);
+        }
+    }
+
+    /**
+     * Number of idle cursors.
+     * @return count.
+     */
+    int getIdleCount() {
+        int count = 0;
+        for (int i = 0; i < cursors.length(); i++) {
+            if (cursors.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -18,11 +18,10 @@
 
 package io.github.eb4j.pdic;
 
-import org.apache.commons.lang3.ArrayUtils;
-
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.Charset;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 
 final class Utils {
 
@@ -32,27 +31,95 @@ final class Utils {
     private Utils() { }
 
     /**
-     * byte配列の本文文字列をCharBufferに変換する.
+     * 次の０までの長さを返す.
+     *
+     * @param buffer target buffer
+     * @param pos start position
+     * @return length of index, or -1 when there is no zero until limit.
+     */
+    static int getLengthToNextZero(final ByteBuffer buffer, final int pos) {
+        final int index = indexOfZero(buffer, pos, buffer.limit());
+        if (index < 0) {
+            return -1;
+        }
+        return index - pos;
+    }
+
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * 次の０の位置を返す.
+     * <p>
+     * Reads eight bytes at a time and tests all of them at once. A byte b is zero exactly when the high bit
+     * of ((b &amp; 0x7F) + 0x7F) | b is clear; the sum never carries into the next byte, so the first
+     * zero is found by counting zero bits from the end matching the byte order of the buffer.
+     *
+     * @param buffer target buffer
+     * @param from start position
+     * @param limit end position, exclusive
+     * @return position of zero, or -1 when there is no zero until limit.
      */
-    static CharBuffer decodetoCharBuffer(final Charset cs, final byte[] array, final int pos, final int len) {
-        return cs.decode(ByteBuffer.wrap(array, pos, len));
+    static int indexOfZero(final ByteBuffer buffer, final int from, final int limit) {
+        final boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        int i = from;
+        while (i + 8 <= limit) {
+            final long v = buffer.getLong(i);
+            final long zeros = ~(((v & LOW7) + LOW7) | v | LOW7);
+            if (zeros != 0) {
+                if (littleEndian) {
+                    return i + (Long.numberOfTrailingZeros(zeros) >>> 3);
+                }
+                return i + (Long.numberOfLeadingZeros(zeros) >>> 3);
+            }
+            i += 8;
+        }
+        while (i < limit) {
+            if (buffer.get(i) == 0) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
     }
 
     /**
-     * 本文の文字列をByteBufferに変換する.
+     * ByteBufferからbyte配列へ絶対位置でコピーする.
+     * <p>
+     * Copies with absolute get to avoid creating a duplicate of the buffer for each call.
      */
-    static ByteBuffer encodetoByteBuffer(final Charset cs, final String str) {
-        return cs.encode(str);
+    static void copyBytes(final ByteBuffer src, final int srcPos, final byte[] dst, final int dstPos, final int len) {
+        if (src.hasArray()) {
+            System.arraycopy(src.array(), src.arrayOffset() + srcPos, dst, dstPos, len);
+            return;
+        }
+        for (int i = 0; i < len; i++) {
+            dst[dstPos + i] = src.get(srcPos + i);
+        }
     }
 
     /**
-     * 次の０までの長さを返す.
+     * ファイルの指定位置からバッファが一杯になるまで読み込む.
+     * <p>
+     * Positional read does not move the channel position, so it is safe to call from several threads.
      *
-     * @param array target byte array
-     * @param pos start position
-     * @return length of index.
+     * @param channel source channel
+     * @param dst destination buffer
+     * @param position file position to start read
+     * @return number of bytes read, or -1 when position is at end of file.
+     * @throws IOException when read error happened.
      */
-    static int getLengthToNextZero(final byte[] array, final int pos) {
-        return ArrayUtils.indexOf(array, (byte) 0, pos) - pos;
+    static int readFully(final FileChannel channel, final ByteBuffer dst, final long position) throws IOException {
+        int total = 0;
+        while (dst.hasRemaining()) {
+            int len = channel.read(dst, position + total);
+            if (len < 0) {
+                if (total == 0) {
+                    return -1;
+                }
+                break;
+            }
+            total += len;
+        }
+        return total;
     }
 }
@@ -0,0 +1,124 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic
+
+import com.ibm.icu.charset.CharsetICU
+import org.junit.jupiter.api.Test
+
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.charset.Charset
+
+import static org.junit.Assert.*
+
+class Bocu1Test {
+
+    static final Charset ICU = CharsetICU.forNameICU("BOCU-1")
+
+    // ASCII and controls, Latin, Hiragana and Katakana, CJK, Hangul, surrogates, private use, supplementary
+    static final int[][] RANGES = [[0x00, 0x20], [0x21, 0x7f], [0x80, 0x24f], [0x3040, 0x30ff], [0x4e00, 0x9fa5],
+                                   [0xac00, 0xd7a3], [0xd800, 0xdfff], [0xe000, 0xffff], [0x10000, 0x10ffff],
+                                   [0x1f600, 0x1f64f], [0x00, 0x10ffff]]
+
+    static String randomString(Random random) {
+        def sb = new StringBuilder()
+        def range = RANGES[random.nextInt(RANGES.length)]
+        int len = random.nextInt(16)
+        for (int i = 0; i < len; i++) {
+            if (random.nextInt(4) == 0) {
+                range = RANGES[random.nextInt(RANGES.length)]
+            }
+            sb.appendCodePoint(range[0] + random.nextInt(range[1] - range[0] + 1))
+        }
+        return sb.toString()
+    }
+
+    static byte[] icuEncode(String str) {
+        ByteBuffer buffer = ICU.encode(str)
+        byte[] bytes = new byte[buffer.remaining()]
+        buffer.get(bytes)
+        return bytes
+    }
+
+    static String icuDecode(byte[] bytes) {
+        CharBuffer buffer = ICU.decode(ByteBuffer.wrap(bytes))
+        return buffer.toString()
+    }
+
+    @Test
+    void sameAsIcu() {
+        def random = new Random(23)
+        byte[] key = new byte[Bocu1.maxEncodedLength(64)]
+        char[] chars = new char[Bocu1.maxDecodedLength(key.length)]
+        for (int n = 0; n < 50000; n++) {
+            def str = randomString(random)
+            byte[] expected = icuEncode(str)
+            assertArrayEquals(str, expected, Bocu1.encode(str))
+            int len = Bocu1.encode(str, key)
+            assertArrayEquals(expected, Arrays.copyOf(key, len))
+            assertEquals(icuDecode(expected), Bocu1.decode(key, 0, len))
+
+            // corrupted and truncated input
+            byte[] bytes
+            if (random.nextBoolean()) {
+                bytes = new byte[random.nextInt(12)]
+                random.nextBytes(bytes)
+            } else {
+                bytes = expected.clone()
+                for (int i = random.nextInt(3); i > 0 && bytes.length > 0; i--) {
+                    bytes[random.nextInt(bytes.length)] = (byte) random.nextInt(256)
+                }
+                if (bytes.length > 0 && random.nextBoolean()) {
+                    bytes = Arrays.copyOf(bytes, random.nextInt(bytes.length))
+                }
+            }
+            String decoded = icuDecode(bytes)
+            assertEquals(decoded, new String(chars, 0, Bocu1.decode(bytes, 0, bytes.length, chars, 0)))
+            assertEquals(decoded, Bocu1.decode(bytes, 0, bytes.length))
+        }
+    }
+
+    @Test
+    void roundTrip() {
+        def samples = ["", "a", "abc\tAbc", "訳語 word", "こんにちは", "한국어", "日本語の辞書", "\u0000\u001f \u007f",
+                       "😀😁a", "\ud800a\udc00", "\uffff\u0000\udbff\udfff"]
+        for (str in samples) {
+            byte[] bytes = Bocu1.encode(str)
+            assertTrue(bytes.length <= Bocu1.maxEncodedLength(str.length()))
+            assertEquals(str, Bocu1.decode(bytes, 0, bytes.length))
+        }
+        // decode a range in the middle of an array
+        byte[] bytes = Bocu1.encode("x\tこんにちは\u0000")
+        assertEquals("こんにちは", Bocu1.decode(bytes, 2, bytes.length - 3))
+        assertArrayEquals([0xfb, 0x11, 0x6a, 0xb3, 0x8b, 0x81, 0x8f] as byte[], Bocu1.encode("こんにちは"))
+    }
+
+    @Test
+    void malformedInput() {
+        // truncated lead byte
+        assertEquals("\ufffd", Bocu1.decode([0xd0] as byte[], 0, 1))
+        // illegal trail byte is consumed and resets the state
+        assertEquals("\u06a0\u06e1\ufffd\u000b", Bocu1.decode([0xd6, 0x7b, 0xb1, 0x21, 0x07, 0x5b] as byte[], 0, 6))
+        // out of code point range
+        assertEquals("\ufffd\u0012", Bocu1.decode([0xfe, 0xfe, 0x21, 0x21, 0x62] as byte[], 0, 5))
+        // lead surrogate at end of input is substituted
+        assertArrayEquals([0xb1, 0x1a] as byte[], Bocu1.encode("a\ud800"))
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic
+
+import org.junit.jupiter.api.Test
+
+import static org.junit.Assert.*
+
+class ClockCacheTest {
+
+    @Test
+    void keepsWithinBudget() {
+        def cache = new ClockCache<byte[]>(100 * 1024, 1024)
+        def random = new Random(1)
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(5000)
+            byte[] value = cache.get(key)
+            if (value == null) {
+                value = new byte[1024]
+                value[0] = (byte) key
+                value = cache.putIfAbsent(key, value, 1024)
+            }
+            assertEquals((byte) key, value[0])
+        }
+        def stats = cache.statistics
+        assertTrue(stats.weightedSize <= 100 * 1024)
+        assertEquals(stats.weightedSize, stats.size * 1024)
+        assertTrue(stats.evictionCount > 0)
+        assertEquals(20000L, stats.hitCount + stats.missCount)
+        int found = (0..<5000).count { cache.get(it) != null }
+        assertEquals(stats.size, (long) found)
+    }
+
+    @Test
+    void keepsReferencedEntries() {
+        def cache = new ClockCache<String>(64, 1)
+        (0..<64).each { cache.putIfAbsent(it, it.toString(), 1) }
+        // touch half of entries then insert new ones; untouched entries are evicted first.
+        (0..<32).each { assertEquals(it.toString(), cache.get(it)) }
+        (64..<96).each { cache.putIfAbsent(it, it.toString(), 1) }
+        (0..<32).each { assertEquals(it.toString(), cache.get(it)) }
+        assertEquals(32L, cache.statistics.evictionCount)
+    }
+
+    @Test
+    void hasRoomInShard() {
+        def cache = new ClockCache<String>(1024 * 1024, 1024)
+        // put while the shard of the key has room, the cache is filled without eviction.
+        int put = 0
+        for (int key = 0; key < 4096; key++) {
+            if (cache.hasRoom(key, 1024)) {
+                cache.putIfAbsent(key, key.toString(), 1024)
+                put++
+            }
+        }
+        def stats = cache.statistics
+        assertEquals(0L, stats.evictionCount)
+        assertEquals(1024L, (long) put)
+        assertEquals(stats.maxWeight, stats.weightedSize)
+        assertTrue(cache.hasRoom(0, 1024))
+        assertFalse(cache.hasRoom(4096, 1024))
+        assertFalse(new ClockCache<String>(0, 1024).hasRoom(0, 1))
+    }
+
+    @Test
+    void disabledCache() {
+        def cache = new ClockCache<String>(0, 1024)
+        assertFalse(cache.enabled)
+        assertEquals("a", cache.putIfAbsent(1, "a", 1))
+        assertNull(cache.get(1))
+        assertEquals(0L, cache.statistics.size)
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+import static org.junit.Assert.*
+
+class LookupThreadFactoryTest {
+
+    @Test
+    void boundedThreadPool() {
+        def pool = LookupThreadFactory.newBoundedThreadPool(2) as ThreadPoolExecutor
+        def release = new CountDownLatch(1)
+        try {
+            def running = (1..2).collect { pool.submit({ release.await(); Thread.currentThread() } as Callable) }
+            int queued = pool.queue.remainingCapacity()
+            queued.times { pool.execute { release.await() } }
+            Assertions.assertThrows(RejectedExecutionException) { pool.execute { } }
+            assertEquals(2, pool.poolSize)
+            release.countDown()
+            running.each {
+                def thread = it.get(10, TimeUnit.SECONDS)
+                assertTrue(thread.daemon)
+                assertTrue(thread.name.startsWith("pdic4j-lookup-"))
+            }
+        } finally {
+            release.countDown()
+            pool.shutdown()
+        }
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS))
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+import java.nio.ByteBuffer
+import java.nio.channels.ClosedChannelException
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static org.junit.Assert.*
+
+class PdicDictionaryConcurrentTest {
+
+    static final int THREADS = 16
+    static final int ITERATIONS = 200
+
+    def file = new File(PdicDictionaryConcurrentTest.class.getResource("/Sample.dic").toURI().path)
+
+    static String describe(List<PdicElement> elements) {
+        elements.collect { [it.indexWord, it.headWord, it.translation, it.example, it.pronunciation].join("|") }
+                .join("\n")
+    }
+
+    @Test
+    void interruptedLookupDoesNotBreakOthers() {
+        // without block cache every lookup reads the file
+        def builder = new PdicLoadOptions.PdicLoadOptionsBuilder()
+        builder.setBlockCacheSize(0)
+        PdicDictionary dictionary = PdicDictionary.loadDictionary(file, null, builder.build())
+        dictionary.setMaxSearchCount(1000)
+        def words = dictionary.getEntriesPredictive("").collect { it.indexWord }.unique()
+        Map<String, String> exact = words.collectEntries { [it, describe(dictionary.getEntries(it))] }
+
+        def pool = Executors.newFixedThreadPool(THREADS)
+        def start = new CountDownLatch(1)
+        try {
+            def interrupted = pool.submit({
+                start.await()
+                for (int i = 0; i < ITERATIONS; i++) {
+                    Thread.currentThread().interrupt()
+                    assertEquals(exact["persian"], describe(dictionary.getEntries("persian")))
+                    assertTrue(Thread.interrupted())
+                }
+                return true
+            } as Callable<Boolean>)
+            def futures = (1..<THREADS).collect { int t ->
+                pool.submit({
+                    start.await()
+                    def random = new Random(t)
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        def word = words[random.nextInt(words.size())]
+                        assertEquals(exact[word], describe(dictionary.getEntries(word)))
+                    }
+                    return true
+                } as Callable<Boolean>)
+            }
+            start.countDown()
+            assertTrue(interrupted.get(60, TimeUnit.SECONDS))
+            futures.each { assertTrue(it.get(60, TimeUnit.SECONDS)) }
+        } finally {
+            pool.shutdownNow()
+        }
+        assertEquals(exact["persian"], describe(dictionary.getEntries("persian")))
+        dictionary.close()
+    }
+
+    @Test
+    void sizeAndMapAfterInterrupt() {
+        def channel = new DictionaryChannel(file)
+        def head = ByteBuffer.allocate(256)
+        assertEquals(256, channel.readFully(head, 0))
+        try {
+            // an interrupted thread closes the channel when it sizes or maps the file
+            Thread.currentThread().interrupt()
+            assertEquals(file.length(), channel.size())
+            assertTrue(Thread.interrupted())
+            Thread.currentThread().interrupt()
+            def mapped = channel.map(0, 256)
+            assertTrue(Thread.interrupted())
+            assertEquals(head.flip(), mapped)
+            Thread.currentThread().interrupt()
+            assertEquals(256, channel.readFully(ByteBuffer.allocate(256), 0))
+            assertTrue(Thread.interrupted())
+            // other threads go on with the reopened channel
+            def other = Executors.newSingleThreadExecutor()
+            try {
+                assertEquals(file.length(), other.submit({ channel.size() } as Callable<Long>).get())
+            } finally {
+                other.shutdown()
+            }
+        } finally {
+            Thread.interrupted()
+            channel.close()
+        }
+        Assertions.assertThrows(ClosedChannelException) { channel.size() }
+    }
+
+    @Test
+    void getEntriesConcurrently() {
+        PdicDictionary dictionary = PdicDictionary.loadDictionary(file, null)
+        dictionary.setMaxSearchCount(1000)
+        def words = dictionary.getEntriesPredictive("").collect { it.indexWord }.unique()
+        assertTrue(words.size() > 10)
+        def prefixes = words.collect { it.substring(0, Math.min(3, it.length())) }.unique()
+
+        // expectations from the single-threaded path
+        Map<String, String> exact = words.collectEntries { [it, describe(dictionary.getEntries(it))] }
+        Map<String, String> predictive = prefixes.collectEntries { [it, describe(dictionary.getEntriesPredictive(it))] }
+        assertTrue(exact.values().every { !it.isEmpty() })
+
+        def pool = Executors.newFixedThreadPool(THREADS)
+        def start = new CountDownLatch(1)
+        try {
+            def futures = (0..<THREADS).collect { int t ->
+                pool.submit({
+                    start.await()
+                    int checked = 0
+                    def random = new Random(t)
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        def word = words[random.nextInt(words.size())]
+                        assertEquals(exact[word], describe(dictionary.getEntries(word)))
+                        def prefix = prefixes[random.nextInt(prefixes.size())]
+                        assertEquals(predictive[prefix], describe(dictionary.getEntriesPredictive(prefix)))
+                        checked += 2
+                    }
+                    return checked
+                } as Callable<Integer>)
+            }
+            start.countDown()
+            futures.each { assertEquals(ITERATIONS * 2, it.get(60, TimeUnit.SECONDS)) }
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+    @Test
+    void getEntriesAsync() {
+        PdicDictionary dictionary = PdicDictionary.loadDictionary(file, null)
+        dictionary.setMaxSearchCount(1000)
+        def words = dictionary.getEntriesPredictive("").collect { it.indexWord }.unique()
+        def prefixes = words.collect { it.substring(0, Math.min(2, it.length())) }.unique()
+
+        def pool = Executors.newFixedThreadPool(THREADS)
+        try {
+            def exact = words.collect { [it, dictionary.getEntriesAsync(it, pool)] }
+            def predictive = prefixes.collect { [it, dictionary.getEntriesPredictiveAsync(it)] }
+            exact.each { assertEquals(describe(dictionary.getEntries(it[0])), describe(it[1].get(60, TimeUnit.SECONDS))) }
+            predictive.each {
+                assertEquals(describe(dictionary.getEntriesPredictive(it[0])), describe(it[1].get(60, TimeUnit.SECONDS)))
+            }
+        } finally {
+            pool.shutdownNow()
+        }
+
+        // cancelled before start; the lookup is skipped
+        def held = []
+        def future = dictionary.getEntriesAsync(words[0], { Runnable r -> held << r } as Executor)
+        assertTrue(future.cancel(false))
+        held.each { it.run() }
+        assertTrue(future.isCancelled())
+
+        // I/O error completes the future exceptionally
+        def closed = PdicDictionary.loadDictionary(file, null)
+        closed.close()
+        try {
+            closed.getEntriesAsync(words[0]).join()
+            fail()
+        } catch (CompletionException e) {
+            assertTrue(e.cause instanceof IOException)
+        }
+        dictionary.close()
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+
+import java.nio.file.Path
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+import static org.junit.Assert.*
+
+class PdicDictionarySetTest {
+
+    def words = SyntheticDictionaryWriter.generateWords(600, 11L)
+
+    @TempDir
+    Path dir
+
+    PdicDictionary load(String name, List<String> subset) {
+        def dicFile = dir.resolve(name).toFile()
+        SyntheticDictionaryWriter.write(dicFile, subset)
+        return PdicDictionary.loadDictionary(dicFile, null)
+    }
+
+    @Test
+    void getEntriesInPriorityOrder() {
+        def first = load("first.dic", words.subList(0, 400))
+        def second = load("second.dic", words.subList(200, 600))
+        def third = load("third.dic", words.subList(300, 500))
+        // later dictionaries answer first
+        int count = 0
+        def executor = { Runnable r -> long d = 300 - 100 * (count++ % 3); Thread.start { sleep(d); r.run() } } as Executor
+        def builder = new PdicDictionarySet.PdicDictionarySetBuilder()
+        builder.addDictionary(first)
+        builder.addDictionary(second)
+        builder.addDictionary(third)
+        builder.setExecutor(executor)
+        def dictionarySet = builder.build()
+        assertEquals([first, second, third], dictionarySet.dictionaries)
+
+        def word = words[350]
+        def results = dictionarySet.lookup(word)
+        assertEquals([first, second, third], results.collect { it.dictionary })
+        assertTrue(results.every { it.entries.size() == 1 && !it.timedOut && it.error == null })
+        def entries = dictionarySet.getEntries(word)
+        assertEquals(3, entries.size())
+        assertTrue(entries.every { it.indexWord == word })
+
+        entries = dictionarySet.getEntries(words[100])
+        assertEquals(1, entries.size())
+        assertEquals(SyntheticDictionaryWriter.translationOf(words[100]), entries[0].translation)
+        assertEquals([], dictionarySet.getEntries("none"))
+
+        def prefix = words[450].substring(0, 2)
+        def expected = [first, second, third].collectMany { it.getEntriesPredictive(prefix) }.collect { it.indexWord }
+        assertEquals(expected, dictionarySet.getEntriesPredictive(prefix).collect { it.indexWord })
+        dictionarySet.close()
+    }
+
+    @Test
+    void slowAndFailedDictionaryIsSkipped() {
+        def first = load("first.dic", words)
+        def slow = load("slow.dic", words)
+        def broken = load("broken.dic", words)
+        broken.close()
+        def builder = new PdicDictionarySet.PdicDictionarySetBuilder()
+        builder.addDictionary(first)
+        builder.addDictionary(slow, 100, TimeUnit.MILLISECONDS)
+        builder.addDictionary(broken)
+        builder.setTimeout(10, TimeUnit.SECONDS)
+        // the task of slow dictionary never runs
+        int count = 0
+        builder.setExecutor({ Runnable r -> if (count++ % 3 != 1) { Thread.start { r.run() } } } as Executor)
+        def dictionarySet = builder.build()
+
+        def word = words[10]
+        def start = System.nanoTime()
+        def results = dictionarySet.lookup(word)
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5))
+        assertEquals(1, results[0].entries.size())
+        assertFalse(results[0].timedOut)
+        assertTrue(results[1].timedOut)
+        assertEquals([], results[1].entries)
+        assertFalse(results[2].timedOut)
+        assertTrue(results[2].error instanceof IOException)
+        assertEquals([word], dictionarySet.getEntries(word).collect { it.indexWord })
+        first.close()
+        slow.close()
+    }
+}
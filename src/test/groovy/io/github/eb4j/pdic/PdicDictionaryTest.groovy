@@ -18,15 +18,69 @@
 
 package io.github.eb4j.pdic
 
+import com.sun.management.UnixOperatingSystemMXBean
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordingFile
+import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Assumptions
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.lang.management.ManagementFactory
 import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
 import static org.junit.Assert.*
 
 class PdicDictionaryTest {
 
     def file = new File(PdicDictionaryTest.class.getResource("/Sample.dic").toURI().path)
-    def cache = new File(file.absolutePath + ".idx")
+
+    @TempDir
+    Path dir
+
+    private File getCache() {
+        return dir.resolve("Sample.dic.idx").toFile()
+    }
+
+    private final List<PdicDictionary> dictionaries = []
+
+    @AfterEach
+    void closeDictionaries() {
+        dictionaries*.close()
+    }
+
+    private PdicDictionary load(File dicFile, File cacheFile, PdicLoadOptions options = PdicLoadOptions.DEFAULT) {
+        def pdicDictionary = PdicDictionary.loadDictionary(dicFile, cacheFile, options)
+        dictionaries << pdicDictionary
+        return pdicDictionary
+    }
+
+    private File getSyntheticFile() {
+        return dir.resolve("synthetic.dic").toFile()
+    }
+
+    private File getSyntheticCache() {
+        return dir.resolve("synthetic.dic.idx").toFile()
+    }
+
+    private File writeSynthetic(List<String> words) {
+        SyntheticDictionaryWriter.write(syntheticFile, words)
+        return syntheticFile
+    }
+
+    private PdicDictionary loadSynthetic(List<String> words, PdicLoadOptions options = PdicLoadOptions.DEFAULT) {
+        return load(writeSynthetic(words), null, options)
+    }
+
+    private static PdicLoadOptions options(@DelegatesTo(PdicLoadOptions.PdicLoadOptionsBuilder) Closure configure) {
+        def builder = new PdicLoadOptions.PdicLoadOptionsBuilder()
+        builder.with(configure)
+        return builder.build()
+    }
 
     @Test
     void getEntriesPredictive() {
@@ -108,4 +162,454 @@ class PdicDictionaryTest {
         assertNull(ele.pronunciation)
         assertNull(ele.example)
     }
+
+    @Test
+    void getEntriesMemoryMapped() {
+        def pdicDictionary = load(file, null, options { setMemoryMapped(true) })
+        def ele = pdicDictionary.getEntries("japanese").get(0)
+        assertEquals("こんにちは", ele.translation)
+        assertEquals("japanese", ele.indexWord)
+        assertEquals("Japanese", ele.headWord)
+        assertEquals(0, ele.attribute)
+        ele = pdicDictionary.getEntriesPredictive("vietnam").get(0)
+        assertEquals("Chào anh,Chào chi", ele.translation)
+        assertEquals(0x10, ele.attribute)
+    }
+
+    @Test
+    void getEntriesWithBoundedIndexCache() {
+        def words = SyntheticDictionaryWriter.generateWords(200000, 42L)
+        def pdicDictionary = loadSynthetic(words, options { setIndexCacheSize(64 * 1024) })
+        def random = new Random(1)
+        for (int i = 0; i < 2000; i++) {
+            def word = words[random.nextInt(words.size())]
+            def entries = pdicDictionary.getEntries(word)
+            assertEquals(1, entries.size())
+            assertEquals(SyntheticDictionaryWriter.translationOf(word), entries[0].translation)
+        }
+        def stats = pdicDictionary.indexCacheStatistics
+        assertTrue(stats.hitCount > 0)
+        assertTrue(stats.missCount > 0)
+        assertTrue(stats.evictionCount > 0)
+        assertTrue(stats.weightedSize <= 64 * 1024)
+        assertEquals(64 * 1024L, stats.maxWeight)
+    }
+
+    @Test
+    void getEntriesWithBlockCache() {
+        def pdicDictionary = load(file, null, options { setBlockCacheSize(64 * 1024) })
+        for (int i = 0; i < 10; i++) {
+            assertEquals("こんにちは", pdicDictionary.getEntries("japanese").get(0).translation)
+        }
+        def stats = pdicDictionary.blockCacheStatistics
+        assertTrue(stats.missCount > 0)
+        assertTrue(stats.hitCount >= 9)
+        assertTrue(stats.size > 0)
+        assertTrue(stats.weightedSize <= 64 * 1024)
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = [false, true])
+    void getEntriesExactMatchOnly(boolean mapped) {
+        def pdicDictionary = loadSynthetic(["ab", "abc", "abcd", "abd", "b"], options { setMemoryMapped(mapped) })
+        def entries = pdicDictionary.getEntries("abc")
+        assertEquals(1, entries.size())
+        assertEquals("abc", entries[0].indexWord)
+        assertEquals("Abc", entries[0].headWord)
+        assertEquals(SyntheticDictionaryWriter.translationOf("abc"), entries[0].translation)
+        assertEquals(1, pdicDictionary.getEntries("b").size())
+        assertTrue(pdicDictionary.getEntries("a").isEmpty())
+        assertTrue(pdicDictionary.getEntries("abcde").isEmpty())
+        assertTrue(pdicDictionary.getEntries("c").isEmpty())
+        assertEquals(4, pdicDictionary.getEntriesPredictive("ab").size())
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = [false, true])
+    void getEntriesBatch(boolean mapped) {
+        def words = SyntheticDictionaryWriter.generateWords(5000, 7L)
+        def random = new Random(3)
+        def keys = []
+        for (int i = 0; i < 2000; i++) {
+            def word = words[random.nextInt(words.size())]
+            switch (random.nextInt(4)) {
+                case 0: keys << word + "0"; break
+                case 1: keys << word.substring(0, word.length() - 1); break
+                case 2: keys << word.substring(0, 1); break
+                default: keys << word
+            }
+        }
+        keys << words.first() << words.last() << "" << "zzzzzzzzzzzzzz"
+        def pdicDictionary = loadSynthetic(words, options { setMemoryMapped(mapped) })
+        def results = pdicDictionary.getEntriesBatch(keys)
+        assertEquals(keys.toSet(), results.keySet())
+        for (key in results.keySet()) {
+            def expected = pdicDictionary.getEntries(key)
+            assertEquals(key, expected*.translation, results[key]*.translation)
+        }
+    }
+
+    @Test
+    void getEntriesLazyFields() {
+        def words = SyntheticDictionaryWriter.generateWords(100, 5L)
+        def pdicDictionary = loadSynthetic(words)
+        pdicDictionary.setMaxSearchCount(100)
+        def entries = pdicDictionary.getEntriesPredictive("")
+        assertEquals(100, entries.size())
+        entries.eachWithIndex { ele, i ->
+            def word = words[i]
+            assertEquals(word.capitalize(), ele.headWord)
+            assertEquals(word, ele.indexWord)
+            assertEquals(SyntheticDictionaryWriter.translationOf(word), ele.translation)
+            if (i % 7 == 0) {
+                assertEquals(0x10, ele.attribute)
+                assertEquals("This is " + word + ".", ele.example)
+                assertEquals(word + "'", ele.pronunciation)
+            } else {
+                assertNull(ele.example)
+                assertNull(ele.pronunciation)
+            }
+        }
+        assertTrue(pdicDictionary.hasEntry(words[42]))
+        assertFalse(pdicDictionary.hasEntry(words[42] + "0"))
+        assertFalse(pdicDictionary.hasEntry(words[42].substring(0, 2)))
+    }
+
+    @Test
+    void streamEntriesPredictive() {
+        def words = SyntheticDictionaryWriter.generateWords(20000, 9L)
+        def pdicDictionary = loadSynthetic(words)
+        // not capped by max search count and crosses block boundaries.
+        assertEquals(words, pdicDictionary.streamEntriesPredictive("").map { it.indexWord }.collect())
+        for (prefix in ["a", "ab", "zz", "xyzzy"]) {
+            def expected = words.findAll { it.startsWith(prefix) }
+            assertEquals(expected, pdicDictionary.streamEntriesPredictive(prefix).map { it.indexWord }.collect())
+        }
+        assertEquals(3L, pdicDictionary.streamEntriesPredictive("b").limit(3).count())
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = [false, true])
+    void entriesAndExport(boolean mapped) {
+        def words = SyntheticDictionaryWriter.generateWords(20000, 11L)
+        def pdicDictionary = loadSynthetic(words, options { setMemoryMapped(mapped) })
+        assertEquals(words, pdicDictionary.entries().map { it.indexWord }.collect())
+        assertEquals(words, pdicDictionary.entries().sequential().map { it.indexWord }.collect())
+        def writer = new StringWriter()
+        pdicDictionary.export(writer)
+        def lines = writer.toString().split("\n")
+        assertEquals(words.size(), lines.length)
+        def word = words[0]
+        assertEquals([word, word.capitalize(), SyntheticDictionaryWriter.translationOf(word),
+                      "This is " + word + ".", word + "'"].join("\t"), lines[0])
+        assertEquals(0L, pdicDictionary.blockCacheStatistics.size)
+    }
+
+    @Test
+    void staleIndexCacheIsRebuilt() {
+        def words = SyntheticDictionaryWriter.generateWords(3000, 1L)
+        def dicFile = writeSynthetic(words)
+        def cacheFile = syntheticCache
+        def pdicDictionary = load(dicFile, cacheFile)
+        assertFalse(pdicDictionary.getDictionaryData().isIndexCacheUsed())
+        pdicDictionary.close()
+        def header = java.nio.ByteBuffer.wrap(cacheFile.bytes).order(java.nio.ByteOrder.LITTLE_ENDIAN)
+        assertEquals(IndexCacheFile.MAGIC, header.getInt(0))
+        assertEquals(IndexCacheFile.VERSION, header.getInt(4))
+
+        // valid cache is used as is
+        pdicDictionary = load(dicFile, cacheFile)
+        assertTrue(pdicDictionary.getDictionaryData().isIndexCacheUsed())
+        assertEquals(1, pdicDictionary.getEntries(words[1234]).size())
+        pdicDictionary.close()
+
+        // replace dictionary with other words; the cache no longer matches
+        def newWords = SyntheticDictionaryWriter.generateWords(5000, 2L)
+        writeSynthetic(newWords)
+        pdicDictionary = load(dicFile, cacheFile)
+        assertFalse(pdicDictionary.getDictionaryData().isIndexCacheUsed())
+        for (word in newWords.subList(0, 500)) {
+            assertEquals(word, SyntheticDictionaryWriter.translationOf(word), pdicDictionary.getEntries(word)[0].translation)
+        }
+        pdicDictionary.close()
+        pdicDictionary = load(dicFile, cacheFile)
+        assertTrue(pdicDictionary.getDictionaryData().isIndexCacheUsed())
+        assertEquals(newWords, pdicDictionary.entries().map { it.indexWord }.collect())
+        assertEquals([], dir.toFile().list().findAll { it.endsWith(".tmp") })
+    }
+
+    @Test
+    void failedIndexLoadClosesDictionary() {
+        def os = ManagementFactory.operatingSystemMXBean
+        Assumptions.assumeTrue(os instanceof UnixOperatingSystemMXBean)
+        def dicFile = writeSynthetic(SyntheticDictionaryWriter.generateWords(3000, 1L))
+        // a directory in place of the cache can not be replaced by the written cache
+        syntheticCache.mkdir()
+        def openFiles = os.openFileDescriptorCount
+        Assertions.assertThrows(IOException) { PdicDictionary.loadDictionary(dicFile, syntheticCache) }
+        assertEquals(openFiles, os.openFileDescriptorCount)
+    }
+
+    @Test
+    void searchIndexBlockByPrefixTable() {
+        def words = SyntheticDictionaryWriter.generateWords(200000, 7L)
+        def dictionaryData = loadSynthetic(words).getDictionaryData()
+        def random = new Random(3)
+        for (int i = 0; i < 20000; i++) {
+            def word = words[random.nextInt(words.size())]
+            // exact, tab terminated, longer, prefix and short keys
+            def keys = [word, word + "\t", word + "0", word.substring(0, random.nextInt(word.length() + 1)),
+                        word.substring(0, Math.min(word.length(), 7)) + "\t"]
+            for (key in keys) {
+                def encoded = Bocu1.encode(key)
+                def expected = IndexSearchReference.searchIndexBlockByFullCompare(dictionaryData, encoded, encoded.length)
+                assertEquals(key, expected, dictionaryData.searchIndexBlock(encoded, encoded.length))
+            }
+        }
+    }
+
+    @Test
+    void getEntriesOffHeapIndex() {
+        def words = SyntheticDictionaryWriter.generateWords(20000, 5L)
+        def dicFile = writeSynthetic(words)
+        def offHeap = options { setOffHeapIndex(true) }
+        for (cacheFile in [null, syntheticCache, syntheticCache]) {
+            def pdicDictionary = load(dicFile, cacheFile, offHeap)
+            for (word in words.subList(0, 1000)) {
+                assertEquals(word, SyntheticDictionaryWriter.translationOf(word), pdicDictionary.getEntries(word)[0].translation)
+            }
+            def usage = pdicDictionary.memoryUsage
+            assertTrue(usage.directSize > 0)
+            // only the block cache is on heap
+            assertEquals(pdicDictionary.blockCacheStatistics.weightedSize, usage.heapSize)
+            if (cacheFile != null) {
+                assertTrue(usage.mappedSize > 0)
+            }
+            pdicDictionary.close()
+        }
+        def pdicDictionary = load(dicFile, null)
+        pdicDictionary.getEntries(words[0])
+        def usage = pdicDictionary.memoryUsage
+        assertEquals(0, usage.directSize)
+        assertEquals(0, usage.mappedSize)
+        assertTrue(usage.heapSize > pdicDictionary.blockCacheStatistics.weightedSize)
+    }
+
+    @Test
+    void lookupListener() {
+        def pdicDictionary = load(file, null)
+        def metrics = []
+        pdicDictionary.setLookupListener({ metrics << it } as PdicLookupListener)
+        assertEquals(1, pdicDictionary.getEntries("japanese").size())
+        assertTrue(pdicDictionary.getEntries("nothing").isEmpty())
+        assertTrue(pdicDictionary.hasEntry("japanese"))
+        def predictive = pdicDictionary.getEntriesPredictive("japan")
+        pdicDictionary.getEntriesBatch(["japanese", "persian"])
+        assertEquals([PdicLookupMetrics.Type.EXACT, PdicLookupMetrics.Type.EXACT, PdicLookupMetrics.Type.HAS_ENTRY,
+                      PdicLookupMetrics.Type.PREDICTIVE, PdicLookupMetrics.Type.BATCH], metrics*.type)
+        assertEquals([1L, 0L, 1L, (long) predictive.size(), 2L], metrics*.results)
+        assertTrue(metrics.every { it.indexProbes > 0 && it.blocksLoaded > 0 && it.elapsedNanos > 0 })
+        // the first lookup reads the block from the file
+        assertTrue(metrics[0].blocksRead > 0)
+        assertTrue(metrics[0].bytesRead >= metrics[0].blocksRead * 512)
+        assertEquals(1, metrics[0].entriesDecoded)
+        assertEquals(0, metrics[2].entriesDecoded)
+
+        def statistics = new PdicLookupStatistics()
+        pdicDictionary.setLookupListener(statistics)
+        pdicDictionary.getEntries("japanese")
+        pdicDictionary.getEntries("persian")
+        assertEquals(2, statistics.lookupCount)
+        assertEquals(2, statistics.results)
+        assertEquals(2, statistics.entriesDecoded)
+        statistics.reset()
+        assertEquals(0, statistics.lookupCount)
+
+        pdicDictionary.setLookupListener(null)
+        pdicDictionary.getEntries("japanese")
+        assertEquals(0, statistics.lookupCount)
+    }
+
+    @Test
+    void warmUp() {
+        def pdicDictionary = load(file, null, options { setWarmUp(PdicWarmUp.INDEX_AND_BLOCKS) })
+        pdicDictionary.getWarmUp().get(10, TimeUnit.SECONDS)
+        def metrics = []
+        pdicDictionary.setLookupListener({ metrics << it } as PdicLookupListener)
+        assertEquals(1, pdicDictionary.getEntries("japanese").size())
+        assertEquals(1, pdicDictionary.getEntries("persian").size())
+        // all blocks of the small dictionary fit in the block cache
+        assertEquals([0L, 0L], metrics*.blocksRead)
+        assertEquals(0, pdicDictionary.getBlockCacheStatistics().missCount)
+
+        pdicDictionary = load(file, null, options { setMemoryMapped(true) })
+        assertTrue(pdicDictionary.getWarmUp().isDone())
+        pdicDictionary.warmUp(PdicWarmUp.FULL).get(10, TimeUnit.SECONDS)
+        assertEquals(1, pdicDictionary.getEntries("japanese").size())
+
+        // segments and blocks are spread over shards of the caches, each filled up without eviction
+        def words = SyntheticDictionaryWriter.generateWords(200000, 42L)
+        pdicDictionary = loadSynthetic(words, options { setIndexCacheSize(256 * 1024) })
+        def indexEvictions = pdicDictionary.indexCacheStatistics.evictionCount
+        pdicDictionary.warmUp(PdicWarmUp.INDEX_AND_BLOCKS).get(60, TimeUnit.SECONDS)
+        def indexStatistics = pdicDictionary.indexCacheStatistics
+        assertEquals(indexEvictions, indexStatistics.evictionCount)
+        assertEquals(indexStatistics.maxWeight, indexStatistics.weightedSize)
+        def blockStatistics = pdicDictionary.blockCacheStatistics
+        assertEquals(0, blockStatistics.evictionCount)
+        assertTrue(blockStatistics.size > 0)
+
+        pdicDictionary = load(file, null)
+        pdicDictionary.close()
+        def future = pdicDictionary.warmUp(PdicWarmUp.FULL)
+        def e = Assertions.assertThrows(ExecutionException) { future.get(10, TimeUnit.SECONDS) }
+        assertTrue(e.cause instanceof IOException)
+    }
+
+    @Test
+    void bloomFilter() {
+        def cacheFile = dir.resolve("Sample.dic.idx").toFile()
+        def filter = options { setBloomFilterBitsPerWord(10) }
+        def pdicDictionary = load(file, cacheFile, filter)
+        assertTrue(IndexCacheFile.getFilterFile(cacheFile).isFile())
+        assertEquals(1, pdicDictionary.getEntries("japanese").size())
+        assertTrue(pdicDictionary.hasEntry("persian"))
+        assertTrue(pdicDictionary.getEntries("nothing").isEmpty())
+        def batch = pdicDictionary.getEntriesBatch(["japanese", "nothing"])
+        assertEquals(1, batch["japanese"].size())
+        assertTrue(batch["nothing"].isEmpty())
+        def statistics = pdicDictionary.filterStatistics
+        assertTrue(statistics.wordCount > 0)
+        assertEquals(5, statistics.queryCount)
+        assertEquals(2, statistics.negativeCount + statistics.falsePositiveCount)
+        assertTrue(statistics.bytesPerWord > 1.0 && statistics.bytesPerWord < 2.0)
+        assertTrue(statistics.expectedFalsePositiveRate < 0.02)
+        assertEquals(0, statistics.bypassCount)
+        // words containing TAB are passed without test, and their misses are not false positives
+        assertTrue(pdicDictionary.getEntries("nothing\tNothing").isEmpty())
+        assertFalse(pdicDictionary.hasEntry("nothing\tNothing"))
+        def bypassed = pdicDictionary.filterStatistics
+        assertEquals(7, bypassed.queryCount)
+        assertEquals(2, bypassed.bypassCount)
+        assertEquals(statistics.falsePositiveCount, bypassed.falsePositiveCount)
+        pdicDictionary.close()
+
+        // read from the filter file
+        pdicDictionary = load(file, cacheFile, filter)
+        assertEquals(statistics.wordCount, pdicDictionary.filterStatistics.wordCount)
+        assertEquals(1, pdicDictionary.getEntries("japanese").size())
+        assertNull(load(file, null).filterStatistics)
+    }
+
+    @Test
+    void normalizedIndex() {
+        def words = SyntheticDictionaryWriter.generateWords(20000, 13L)
+        def dicFile = writeSynthetic(words)
+        def cacheFile = syntheticCache
+        def normalized = options { setNormalizedIndex(true) }
+        def pdicDictionary = load(dicFile, cacheFile, normalized)
+        assertTrue(IndexCacheFile.getNormalizedFile(cacheFile).isFile())
+        def random = new Random(5)
+        for (int i = 0; i < 2000; i++) {
+            def word = words[random.nextInt(words.size())]
+            def expected = pdicDictionary.getEntries(word).collect { it.indexWord }
+            def fullWidth = word.collect { (char) (it.charAt(0) - ('a' as char) + 0xff41) }.join()
+            for (variant in [word, word.toUpperCase(), word.capitalize(), fullWidth]) {
+                assertEquals(variant, expected, pdicDictionary.getEntriesNormalized(variant).collect { it.indexWord })
+            }
+        }
+        assertTrue(pdicDictionary.getEntriesNormalized("Nothing").isEmpty())
+        pdicDictionary.close()
+
+        // read from the index file, or built at first lookup without option
+        pdicDictionary = load(dicFile, cacheFile, normalized)
+        assertEquals(1, pdicDictionary.getEntriesNormalized(words[100].toUpperCase()).size())
+        def entries = load(file, null).getEntriesNormalized("JAPANESE")
+        assertEquals(["japanese"], entries.collect { it.indexWord })
+    }
+
+    static int editDistance(String a, String b) {
+        int[] prev = (0..b.length()) as int[]
+        for (int i = 1; i <= a.length(); i++) {
+            int[] cur = new int[b.length() + 1]
+            cur[0] = i
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1
+                cur[j] = Math.min(prev[j - 1] + cost, Math.min(prev[j], cur[j - 1]) + 1)
+            }
+            prev = cur
+        }
+        return prev[b.length()]
+    }
+
+    @Test
+    void fuzzyLookup() {
+        def words = SyntheticDictionaryWriter.generateWords(5000, 17L)
+        def pdicDictionary = loadSynthetic(words)
+        def random = new Random(7)
+        for (int i = 0; i < 50; i++) {
+            def chars = words[random.nextInt(words.size())].toCharArray()
+            chars[random.nextInt(chars.length)] = (char) (('a' as char) + random.nextInt(26))
+            def word = new String(chars)
+            def distances = words.collectEntries { [(it): editDistance(word, it)] }
+            for (maxEdits in 0..2) {
+                // nearest first, then in index order
+                def expected = (0..maxEdits).collectMany { d -> words.findAll { distances[it] == d } }
+                assertEquals(word, expected, pdicDictionary.getEntriesFuzzy(word, maxEdits, 1000).collect { it.indexWord })
+                assertEquals(word, expected.take(2), pdicDictionary.getEntriesFuzzy(word, maxEdits, 2).collect { it.indexWord })
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException) { pdicDictionary.getEntriesFuzzy("word", 3, 10) }
+        assertEquals(["japanese"], load(file, null).getEntriesFuzzy("japanesr", 1, 10).collect { it.indexWord })
+    }
+
+    @Test
+    void resultCache() {
+        def resultCache = options { setResultCacheSize(1024 * 1024) }
+        def pdicDictionary = load(file, null, resultCache)
+        def entries = pdicDictionary.getEntries("japanese")
+        assertEquals(1, entries.size())
+        assertSame(entries, pdicDictionary.getEntries("japanese"))
+        Assertions.assertThrows(UnsupportedOperationException) { entries.clear() }
+        def predictive = pdicDictionary.getEntriesPredictive("japan")
+        assertSame(predictive, pdicDictionary.getEntriesPredictive("japan"))
+        assertTrue(pdicDictionary.getEntries("nothing").isEmpty())
+        pdicDictionary.setMaxSearchCount(1)
+        assertNotSame(predictive, pdicDictionary.getEntriesPredictive("japan"))
+        def statistics = pdicDictionary.resultCacheStatistics
+        assertEquals(2, statistics.hitCount)
+        assertEquals(4, statistics.missCount)
+        assertEquals(4, statistics.size)
+        pdicDictionary.close()
+
+        // a dictionary loaded again starts with an empty cache
+        assertEquals(0, load(file, null, resultCache).resultCacheStatistics.size)
+    }
+
+    @Test
+    void flightRecorderEvents() {
+        def dump = dir.resolve("lookup.jfr")
+        def recording = new Recording()
+        recording.enable("io.github.eb4j.pdic.Load")
+        recording.enable("io.github.eb4j.pdic.Lookup")
+        recording.enable("io.github.eb4j.pdic.BlockRead")
+        recording.start()
+        def pdicDictionary = load(file, dir.resolve("Sample.dic.idx").toFile())
+        pdicDictionary.getEntries("japanese")
+        pdicDictionary.close()
+        recording.stop()
+        recording.dump(dump)
+        recording.close()
+        def events = RecordingFile.readAllEvents(dump)
+        def loadEvent = events.find { it.eventType.name == "io.github.eb4j.pdic.Load" }
+        assertEquals(file.path, loadEvent.getString("path"))
+        assertFalse(loadEvent.getBoolean("indexCacheUsed"))
+        def lookup = events.find { it.eventType.name == "io.github.eb4j.pdic.Lookup" }
+        assertEquals("EXACT", lookup.getString("lookupType"))
+        assertEquals(8L, lookup.getLong("keyLength"))
+        assertEquals(1, lookup.getInt("results"))
+        def blockReads = events.findAll { it.eventType.name == "io.github.eb4j.pdic.BlockRead" }
+        assertEquals(lookup.getLong("blocksRead"), (long) blockReads.size())
+        assertTrue(blockReads.every { it.getInt("bytes") >= 512 && it.getInt("sectors") > 0 })
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+import static org.junit.Assert.*
+
+class ResultCacheTest {
+
+    static final int WEIGHT = 64 + 2 * 5 + new PdicElement.PdicElementBuilder().build().estimateSize()
+
+    static ResultCache.Key key(int i) {
+        return ResultCache.key(PdicLookupMetrics.Type.EXACT, String.format("w%04d", i), 10)
+    }
+
+    static List<PdicElement> result(int i) {
+        def builder = new PdicElement.PdicElementBuilder()
+        builder.setIndexWord(String.format("w%04d", i))
+        return [builder.build()]
+    }
+
+    @Test
+    void keepsWithinBudget() {
+        def cache = new ResultCache(100 * WEIGHT)
+        def random = new Random(1)
+        for (int i = 0; i < 20000; i++) {
+            int k = random.nextInt(500)
+            def value = cache.get(key(k))
+            if (value == null) {
+                value = cache.put(key(k), result(k))
+            }
+            assertEquals(String.format("w%04d", k), value[0].indexWord)
+        }
+        def stats = cache.statistics
+        assertTrue(stats.weightedSize <= 100 * WEIGHT)
+        assertEquals(stats.weightedSize, stats.size * WEIGHT)
+        assertTrue(stats.evictionCount > 0)
+        assertEquals(20000L, stats.hitCount + stats.missCount)
+    }
+
+    @Test
+    void protectsEntriesHitAgain() {
+        def cache = new ResultCache(50 * WEIGHT)
+        (0..<50).each { cache.put(key(it), result(it)) }
+        (0..<20).each { assertNotNull(cache.get(key(it))) }
+        // a scan of words looked up once evicts only the probation segment
+        (100..<150).each { cache.put(key(it), result(it)) }
+        (0..<20).each { assertNotNull(cache.get(key(it))) }
+        (20..<50).each { assertNull(cache.get(key(it))) }
+        assertEquals(50L, cache.statistics.evictionCount)
+    }
+
+    @Test
+    void keyAndResult() {
+        def cache = new ResultCache(1024 * 1024)
+        def value = cache.put(key(1), new ArrayList<>(result(1)))
+        Assertions.assertThrows(UnsupportedOperationException) { value.add(null) }
+        assertSame(value, cache.get(key(1)))
+        assertNull(cache.get(ResultCache.key(PdicLookupMetrics.Type.PREDICTIVE, "w0001", 10)))
+        assertNull(cache.get(ResultCache.key(PdicLookupMetrics.Type.EXACT, "w0001", 100)))
+        cache.clear()
+        assertNull(cache.get(key(1)))
+        assertEquals(0L, cache.statistics.size)
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic
+
+import org.junit.jupiter.api.Test
+
+import java.util.concurrent.CountDownLatch
+
+import static org.junit.Assert.*
+
+class SearchCursorPoolTest {
+
+    @Test
+    void reusesReturnedCursor() {
+        def pool = new SearchCursorPool(2)
+        def cursor = pool.acquire()
+        pool.release(cursor)
+        assertSame(cursor, pool.acquire())
+        assertNotSame(cursor, pool.acquire())
+    }
+
+    @Test
+    void keepsAtMostSizeIdle() {
+        def pool = new SearchCursorPool(4)
+        int threads = 32
+        def start = new CountDownLatch(1)
+        def workers = (1..threads).collect {
+            Thread.start {
+                start.await()
+                for (int i = 0; i < 1000; i++) {
+                    def cursor = pool.acquire()
+                    cursor.encodeKey("word" + i)
+                    pool.release(cursor)
+                }
+            }
+        }
+        start.countDown()
+        workers*.join()
+        assertTrue(pool.idleCount > 0)
+        assertTrue(pool.idleCount <= 4)
+    }
+
+    @Test
+    void clearDropsCursors() {
+        def pool = new SearchCursorPool(2)
+        def cursor = pool.acquire()
+        pool.release(pool.acquire())
+        pool.clear()
+        assertEquals(0, pool.idleCount)
+        // cursors returned after clear are not kept
+        pool.release(cursor)
+        assertEquals(0, pool.idleCount)
+    }
+}
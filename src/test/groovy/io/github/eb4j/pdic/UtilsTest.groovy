@@ -0,0 +1,53 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic
+
+import org.junit.jupiter.api.Test
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+import static org.junit.Assert.*
+
+class UtilsTest {
+
+    @Test
+    void indexOfZero() {
+        def random = new Random(1)
+        for (order in [ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN]) {
+            for (int n = 0; n < 2000; n++) {
+                def bytes = new byte[1 + random.nextInt(40)]
+                for (int i = 0; i < bytes.length; i++) {
+                    // 0x01 and 0x80 next to zero are the cases a borrow or carry would break.
+                    bytes[i] = (byte) [0, 1, 0x80, 0xFF, random.nextInt(256)][random.nextInt(5)]
+                }
+                def buffer = ByteBuffer.wrap(bytes).order(order)
+                int from = random.nextInt(bytes.length)
+                int expected = -1
+                for (int i = from; i < bytes.length; i++) {
+                    if (bytes[i] == 0) {
+                        expected = i
+                        break
+                    }
+                }
+                assertEquals(expected, Utils.indexOfZero(buffer, from, bytes.length))
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.eb4j.pdic;
+
+/**
+ * Index search without the table of first bytes of index words, for tests and benchmarks.
+ */
+public final class IndexSearchReference {
+
+    private IndexSearchReference() {
+    }
+
+    /**
+     * インデックス領域を先頭部分の表を使わずに検索.
+     * <p>
+     * Reference of {@link DictionaryData#searchIndexBlock(byte[], int)}, comparing every index word in
+     * the index area.
+     *
+     * @param dictionaryData dictionary to search.
+     * @param key encoded search word.
+     * @param keyLen length of key.
+     * @return index of block
+     */
+    public static int searchIndexBlockByFullCompare(final DictionaryData dictionaryData, final byte[] key,
+                                                    final int keyLen) {
+        int min = 0;
+        int max = dictionaryData.getIndexCount() - 1;
+
+        for (int i = 0; i < 32; i++) {
+            if ((max - min) <= 1) {
+                return min;
+            }
+            final int look = (int) (((long) min + max) / 2);
+            final int comp = dictionaryData.compareIndexWord(key, keyLen, look, null);
+            if (comp < 0) {
+                max = look;
+            } else if (comp > 0) {
+                min = look;
+            } else {
+                return look;
+            }
+        }
+        return min;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * PDIC4j, a PDIC dictionary access library.
+ * Copyright (C) 2022 Hiroshi Miura.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.eb4j.pdic;
+
+import com.ibm.icu.charset.CharsetICU;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writer of synthetic PDIC/Unicode ver.6 dictionaries for tests and benchmarks.
+ * <p>
+ * Index words are random lower case words with a capitalized head word, "word\tWord", and every
+ * entry gets the translation returned by {@link #translationOf(String)}. Every seventh entry has
+ * extended attributes with an example and a pronunciation.
+ */
+public final class SyntheticDictionaryWriter {
+    private static final int HEADER_SIZE = 256;
+    private static final int BLOCK_SIZE = 256;
+    private static final int MAX_BLOCK_UNITS = 1;
+    private static final Charset BOCU1 = CharsetICU.forNameICU("BOCU-1");
+
+    private SyntheticDictionaryWriter() {
+    }
+
+    /**
+     * Translation of synthetic entry.
+     * @param word index word.
+     * @return translation text.
+     */
+    public static String translationOf(final String word) {
+        return "訳語 " + word;
+    }
+
+    /**
+     * Generate sorted unique random words.
+     * @param count number of words.
+     * @param seed random seed.
+     * @return words sorted in index byte order.
+     */
+    public static List<String> generateWords(final int count, final long seed) {
+        Random random = new Random(seed);
+        Set<String> words = new HashSet<>();
+        StringBuilder sb = new StringBuilder();
+        while (words.size() < count) {
+            sb.setLength(0);
+            int len = 3 + random.nextInt(10);
+            for (int i = 0; i < len; i++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            words.add(sb.toString());
+        }
+        List<String> result = new ArrayList<>(words);
+        result.sort((a, b) -> compareBytes(encode(indexString(a)), encode(indexString(b))));
+        return result;
+    }
+
+    /**
+     * Write dictionary of random words.
+     * @param file destination file.
+     * @param count number of words.
+     * @param seed random seed.
+     * @return written index words in index order.
+     * @throws IOException when write failed.
+     */
+    public static List<String> write(final File file, final int count, final long seed) throws IOException {
+        List<String> words = generateWords(count, seed);
+        write(file, words);
+        return words;
+    }
+
+    /**
+     * Write dictionary.
+     * @param file destination file.
+     * @param words index words sorted in index byte order.
+     * @throws IOException when write failed.
+     */
+    public static void write(final File file, final List<String> words) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        List<byte[]> firstWords = new ArrayList<>();
+        List<Integer> blockNumbers = new ArrayList<>();
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        byte[] previous = new byte[0];
+        byte[] firstWord = null;
+        for (int n = 0; n < words.size(); n++) {
+            String word = words.get(n);
+            byte[] index = encode(indexString(word));
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            boolean extended = n % 7 == 0;
+            int complen = 0;
+            if (firstWord != null) {
+                complen = commonPrefix(previous, index);
+            }
+            record.write(extended ? 0x10 : 0);
+            record.write(index, complen, index.length - complen);
+            record.write(0);
+            byte[] translation = encode(translationOf(word));
+            record.write(translation, 0, translation.length);
+            if (extended) {
+                record.write(0);
+                record.write(0x01);
+                byte[] example = encode("This is " + word + ".");
+                record.write(example, 0, example.length);
+                record.write(0);
+                record.write(0x02);
+                byte[] pronunciation = encode(word + "'");
+                record.write(pronunciation, 0, pronunciation.length);
+                record.write(0);
+                record.write(0x80);
+            }
+            byte[] data = record.toByteArray();
+            // block header(2) + field length(2) + complen(1) + data + terminator(2)
+            if (firstWord != null && block.size() + 3 + data.length + 2 > BLOCK_SIZE * MAX_BLOCK_UNITS) {
+                flushBlock(body, block);
+                firstWord = null;
+                complen = 0;
+                n--;
+                continue;
+            }
+            if (firstWord == null) {
+                firstWord = index;
+                firstWords.add(index);
+                blockNumbers.add(body.size() / BLOCK_SIZE);
+                block.write(0);
+                block.write(0);
+            }
+            int flen = data.length - 1;
+            block.write(flen & 0xFF);
+            block.write((flen >> 8) & 0xFF);
+            block.write(complen);
+            block.write(data, 0, data.length);
+            previous = index;
+        }
+        if (firstWord != null) {
+            flushBlock(body, block);
+        }
+
+        boolean longBlockNumber = body.size() / BLOCK_SIZE > 0xFFFF;
+        ByteArrayOutputStream indexArea = new ByteArrayOutputStream();
+        for (int i = 0; i < firstWords.size(); i++) {
+            int blockNo = blockNumbers.get(i);
+            indexArea.write(blockNo & 0xFF);
+            indexArea.write((blockNo >> 8) & 0xFF);
+            if (longBlockNumber) {
+                indexArea.write((blockNo >> 16) & 0xFF);
+                indexArea.write((blockNo >> 24) & 0x7F);
+            }
+            byte[] word = firstWords.get(i);
+            indexArea.write(word, 0, word.length);
+            indexArea.write(0);
+        }
+        int indexBlocks = (indexArea.size() + 1 + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        while (indexArea.size() < indexBlocks * BLOCK_SIZE) {
+            indexArea.write(0);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("Synthetic PDIC dictionary".getBytes("US-ASCII"));
+        header.position(140);
+        header.putShort((short) 0x0600);  // version
+        header.putShort((short) 248);  // lword
+        header.putShort((short) 0);  // ljapa
+        header.putShort((short) BLOCK_SIZE);
+        header.putShort((short) indexBlocks);
+        header.putShort((short) HEADER_SIZE);
+        header.putShort((short) 0);  // index_size
+        header.putShort((short) 0);  // empty_block
+        header.putShort((short) 0);  // nindex
+        header.putShort((short) 0);  // nblock
+        header.putInt(words.size());  // nword
+        header.put((byte) 0);  // dicorder
+        header.put((byte) 0);  // dictype
+        header.put((byte) 1);  // attrlen
+        header.put((byte) 0x20);  // os: BOCU-1
+        header.putInt(0);  // ole_number
+        for (int i = 0; i < 5; i++) {
+            header.putShort((short) 0);  // lid_dummy
+        }
+        header.put((byte) (longBlockNumber ? 1 : 0));  // index_blkbit
+        header.put((byte) 0);  // dummy0
+        header.putInt(0);  // extheader
+        header.putInt(-1);  // empty_block2
+        header.putInt(firstWords.size());  // nindex2
+        header.putInt(body.size() / BLOCK_SIZE);  // nblock2
+
+        try (OutputStream os = new FileOutputStream(file)) {
+            os.write(header.array());
+            indexArea.writeTo(os);
+            body.writeTo(os);
+        }
+    }
+
+    private static void flushBlock(final ByteArrayOutputStream body, final ByteArrayOutputStream block) {
+        block.write(0);
+        block.write(0);
+        byte[] data = block.toByteArray();
+        int units = (data.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        data[0] = (byte) (units & 0xFF);
+        data[1] = (byte) ((units >> 8) & 0x7F);
+        body.write(data, 0, data.length);
+        for (int i = data.length; i < units * BLOCK_SIZE; i++) {
+            body.write(0);
+        }
+        block.reset();
+    }
+
+    private static String indexString(final String word) {
+        return word + "\t" + Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static byte[] encode(final String str) {
+        ByteBuffer buffer = BOCU1.encode(str);
+        byte[] bytes = new byte[buffer.limit()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static int commonPrefix(final byte[] a, final byte[] b) {
+        int len = Math.min(Math.min(a.length, b.length), 255);
+        int i = 0;
+        while (i < len && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int compareBytes(final byte[] a, final byte[] b) {
+        int len = Math.min(a.length, b.length);
+        for (int i = 0; i < len; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return a.length - b.length;
+    }
+}